@@ -0,0 +1,102 @@
+package com.laxus.android.refreshlayout;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.SystemClock;
+
+/**
+ * Live performance numbers RefreshLayout draws over its content, only available in debuggable apps.
+ * frames are sampled from Choreographer by RefreshLayout, so the numbers keep moving while only a child,
+ * eg. the spinner, is redrawn. frame numbers need api 16.
+ */
+class DebugHud {
+
+    private static final int TEXT_SIZE = 11;//SP
+    private static final int PADDING = 4;//DP
+    private static final int BACKGROUND_COLOR = 0xAA000000;
+    private static final int TEXT_COLOR = 0xFF00FF00;
+    private static final int LINE_COUNT = 6;
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBackgroundPaint = new Paint();
+    private final int mPadding;
+    private final float mLineHeight;
+    private final float mFrameIntervalMill;
+    private final StringBuilder mLine = new StringBuilder();
+
+    private long mConsumeWindowStart;
+    private int mConsumeCount;
+    private int mConsumePerSecond;
+
+    private long mLastFrameInterval;
+    private int mDroppedFrames;
+
+    private long mRefreshFiredTime;
+
+    DebugHud(Context context) {
+        final float density = context.getResources().getDisplayMetrics().density;
+        mPadding = (int) (PADDING * density);
+        mTextPaint.setColor(TEXT_COLOR);
+        mTextPaint.setTextSize(TEXT_SIZE * context.getResources().getDisplayMetrics().scaledDensity);
+        mLineHeight = mTextPaint.getFontSpacing();
+        mBackgroundPaint.setColor(BACKGROUND_COLOR);
+
+        mFrameIntervalMill = FrameTrackingAnimation.getFrameIntervalMill(context);
+    }
+
+    void onConsume() {
+        final long now = SystemClock.uptimeMillis();
+        if (now - mConsumeWindowStart >= 1000) {
+            mConsumePerSecond = mConsumeCount;
+            mConsumeCount = 0;
+            mConsumeWindowStart = now;
+        }
+        mConsumeCount++;
+    }
+
+    void onRefreshFired() {
+        mRefreshFiredTime = SystemClock.uptimeMillis();
+    }
+
+    void onRefreshReset() {
+        mRefreshFiredTime = 0;
+    }
+
+    /**
+     * @param intervalMill time since previous display frame
+     * @param animating    whether RefreshLayout has something moving, dropped frames are only counted meanwhile
+     */
+    void onFrame(float intervalMill, boolean animating) {
+        mLastFrameInterval = Math.round(intervalMill);
+        if (!animating) {
+            mDroppedFrames = 0;
+        } else if (intervalMill > mFrameIntervalMill * 1.5f) {
+            mDroppedFrames += Math.round(intervalMill / mFrameIntervalMill) - 1;
+        }
+    }
+
+    void draw(Canvas canvas, RefreshLayout layout, int offset, float triggerProgress) {
+        final long now = SystemClock.uptimeMillis();
+
+        final float left = layout.getScrollX() + mPadding;
+        final float top = layout.getScrollY() + mPadding;
+        canvas.drawRect(left, top, left + mTextPaint.measureText("refreshing 00000ms") + mPadding * 2,
+                top + mLineHeight * LINE_COUNT + mPadding * 2, mBackgroundPaint);
+
+        float y = top + mPadding - mTextPaint.ascent();
+        y = drawLine(canvas, left, y, "consume/s ", mConsumePerSecond, "");
+        y = drawLine(canvas, left, y, "offset ", offset, "px");
+        y = drawLine(canvas, left, y, "trigger ", triggerProgress < 0 ? -1 : (int) (triggerProgress * 100), "%");
+        y = drawLine(canvas, left, y, "frame ", mLastFrameInterval, "ms");
+        y = drawLine(canvas, left, y, "dropped ", mDroppedFrames, "");
+        drawLine(canvas, left, y, "refreshing ", mRefreshFiredTime == 0 ? 0 : now - mRefreshFiredTime, "ms");
+    }
+
+    private float drawLine(Canvas canvas, float left, float y, String label, long value, String unit) {
+        mLine.setLength(0);
+        mLine.append(label).append(value).append(unit);
+        canvas.drawText(mLine, 0, mLine.length(), left + mPadding, y, mTextPaint);
+        return y + mLineHeight;
+    }
+}
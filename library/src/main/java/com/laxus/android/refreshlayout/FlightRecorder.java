@@ -0,0 +1,211 @@
+package com.laxus.android.refreshlayout;
+
+import android.os.SystemClock;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size ring buffer of RefreshLayout state transitions, for diagnosing stuck or repeated refreshes.
+ * events are primitive and recorded without allocation or lock by the main thread,
+ * {@link #dumpText()} and {@link #dumpBinary()} could be called from any thread,
+ * events overwritten while dumping are dropped from the dump.
+ */
+public class FlightRecorder {
+
+    public static final int CAPACITY = 256;
+
+    /**
+     * onInterceptTouchEvent rejected a gesture on ACTION_DOWN, arg0: REJECT_* flags
+     */
+    public static final int EVENT_INTERCEPT_REJECTED = 1;
+    /**
+     * drag started, RefreshLayout intercepts following events
+     */
+    public static final int EVENT_DRAG_START = 2;
+    /**
+     * drag ended, arg0: 1 if canceled
+     */
+    public static final int EVENT_DRAG_END = 3;
+    /**
+     * onStartNestedScroll, arg0: 1 if accepted, arg1: nested scroll axes
+     */
+    public static final int EVENT_NESTED_START = 4;
+    /**
+     * onStopNestedScroll, arg0: 1 if nested motion consumed, arg1: 1 if RM should be notified
+     */
+    public static final int EVENT_NESTED_STOP = 5;
+    /**
+     * setRefreshInternal, arg0: new refresh state, arg1: STATE_* flags
+     */
+    public static final int EVENT_REFRESH_STATE = 6;
+    /**
+     * abortScrolling, arg0: ABORT_* flags
+     */
+    public static final int EVENT_ABORT_SCROLLING = 7;
+    /**
+     * RM animation started, arg0: ANIMATION_* id
+     */
+    public static final int EVENT_ANIMATION_START = 8;
+    /**
+     * RM animation ended, arg0: ANIMATION_* id
+     */
+    public static final int EVENT_ANIMATION_END = 9;
+    /**
+     * OnRefreshListener is about to be notified
+     */
+    public static final int EVENT_REFRESH_FIRED = 10;
+    /**
+     * RM reset to its original state
+     */
+    public static final int EVENT_RESET = 11;
+    /**
+     * a refresh was not fired because of refresh policy, arg0: 1 for min interval, 2 for recently refreshed
+     */
+    public static final int EVENT_REFRESH_SUPPRESSED = 12;
+    /**
+     * a gesture left touch slop in a direction RefreshLayout doesn't handle, arg0: x offset, arg1: y offset
+     */
+    public static final int EVENT_DRAG_REJECTED = 13;
+
+    public static final int REJECT_NO_MANAGER = 1;
+    public static final int REJECT_DISABLED = 1 << 1;
+    public static final int REJECT_TARGET_CAN_SCROLL_UP = 1 << 2;
+    public static final int REJECT_NOT_ACCEPT_SCROLL = 1 << 3;
+    public static final int REJECT_IN_NESTED_SCROLLING = 1 << 4;
+    public static final int REJECT_GESTURE_LOCKED = 1 << 5;
+    public static final int REJECT_GESTURE_LOST = 1 << 6;
+
+    public static final int STATE_SCROLLING = 1;
+    public static final int STATE_ABORT_SCROLLING = 1 << 1;
+    public static final int STATE_CHANGED = 1 << 2;
+    public static final int STATE_RESTORED = 1 << 3;
+
+    public static final int ABORT_NESTED_SCROLLING = 1;
+    public static final int ABORT_DRAGGING = 1 << 1;
+
+    public static final int ANIMATION_PREPARE = 1;
+    public static final int ANIMATION_FINISH = 2;
+    public static final int ANIMATION_ABSORB = 3;
+
+    private static final String[] EVENT_NAMES = new String[]{
+            "UNKNOWN", "INTERCEPT_REJECTED", "DRAG_START", "DRAG_END", "NESTED_START", "NESTED_STOP",
+            "REFRESH_STATE", "ABORT_SCROLLING", "ANIMATION_START", "ANIMATION_END", "REFRESH_FIRED", "RESET",
+            "REFRESH_SUPPRESSED", "DRAG_REJECTED"
+    };
+
+    /**
+     * size of a single event in binary dump: time, event, arg0, arg1
+     */
+    public static final int BINARY_EVENT_SIZE = 8 + 4 + 4 + 4;
+
+    private final AtomicLongArray mTimes = new AtomicLongArray(CAPACITY);
+    private final AtomicIntegerArray mEvents = new AtomicIntegerArray(CAPACITY);
+    private final AtomicIntegerArray mArgs0 = new AtomicIntegerArray(CAPACITY);
+    private final AtomicIntegerArray mArgs1 = new AtomicIntegerArray(CAPACITY);
+
+    /**
+     * per slot sequence, count of events recorded once the event in slot is complete,
+     * negative while it's being written
+     */
+    private final AtomicLongArray mSequences = new AtomicLongArray(CAPACITY);
+
+    /**
+     * count of events ever recorded, published after the event is written
+     */
+    private volatile long mWriteCount;
+
+    /**
+     * record an event, must be called from the main thread
+     */
+    public void record(int event, int arg0, int arg1) {
+        record(SystemClock.uptimeMillis(), event, arg0, arg1);
+    }
+
+    public void record(int event) {
+        record(event, 0, 0);
+    }
+
+    void record(long time, int event, int arg0, int arg1) {
+        final long count = mWriteCount;
+        final int slot = (int) (count % CAPACITY);
+        mSequences.set(slot, -(count + 1));
+        mTimes.set(slot, time);
+        mEvents.set(slot, event);
+        mArgs0.set(slot, arg0);
+        mArgs1.set(slot, arg1);
+        mSequences.set(slot, count + 1);
+        mWriteCount = count + 1;
+    }
+
+    /**
+     * @return recorded events from oldest to newest, one per line
+     */
+    public String dumpText() {
+        final Snapshot snapshot = snapshot();
+        final StringBuilder sb = new StringBuilder(snapshot.size * 48);
+        for (int i = 0; i < snapshot.size; ++i) {
+            final int event = snapshot.events[i];
+            final String name = event > 0 && event < EVENT_NAMES.length ? EVENT_NAMES[event] : EVENT_NAMES[0];
+            sb.append(String.format(Locale.US, "%d %s %d %d%n",
+                    snapshot.times[i], name, snapshot.args0[i], snapshot.args1[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return recorded events from oldest to newest, each of {@link #BINARY_EVENT_SIZE} bytes in big endian:
+     * uptime millis as long, event, arg0, arg1 as int
+     */
+    public byte[] dumpBinary() {
+        final Snapshot snapshot = snapshot();
+        final ByteBuffer buffer = ByteBuffer.allocate(snapshot.size * BINARY_EVENT_SIZE);
+        for (int i = 0; i < snapshot.size; ++i) {
+            buffer.putLong(snapshot.times[i]);
+            buffer.putInt(snapshot.events[i]);
+            buffer.putInt(snapshot.args0[i]);
+            buffer.putInt(snapshot.args1[i]);
+        }
+        return buffer.array();
+    }
+
+    private Snapshot snapshot() {
+        final Snapshot snapshot = new Snapshot();
+        final long end = mWriteCount;
+        final long start = Math.max(0, end - CAPACITY);
+        for (long i = start; i < end; ++i) {
+            final int slot = (int) (i % CAPACITY);
+            //slot is read between two checks of its sequence, a changed sequence means it was overwritten meanwhile
+            if (mSequences.get(slot) != i + 1) {
+                continue;
+            }
+            final long time = mTimes.get(slot);
+            final int event = mEvents.get(slot);
+            final int arg0 = mArgs0.get(slot);
+            final int arg1 = mArgs1.get(slot);
+            if (mSequences.get(slot) != i + 1) {
+                continue;
+            }
+            snapshot.add(time, event, arg0, arg1);
+        }
+        return snapshot;
+    }
+
+    private static class Snapshot {
+        long[] times = new long[CAPACITY];
+        int[] events = new int[CAPACITY];
+        int[] args0 = new int[CAPACITY];
+        int[] args1 = new int[CAPACITY];
+        int size;
+
+        void add(long time, int event, int arg0, int arg1) {
+            times[size] = time;
+            events[size] = event;
+            args0[size] = arg0;
+            args1[size] = arg1;
+            ++size;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.laxus.android.refreshlayout;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.view.Window;
+import android.view.WindowManager;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Preferred display refresh rate requests of animations that don't need every frame, eg. an idle spinner.
+ * a request lowers the refresh rate preferred by the window of a view, the rate the window preferred before
+ * is restored a moment after every request of that window is released, so an animation stopped and started
+ * again right away doesn't relayout the window twice. requests are dropped once the window is gone.
+ * the rate applies to the whole window, so anything else moving in it is throttled as well,
+ * {@link #interrupt(View)} gives the window its rate back as soon as something else may move, eg. on touch.
+ * requires api 21, an Activity window and an attached view, otherwise requests are ignored.
+ * should be called on the main thread.
+ */
+public final class FrameRateHint {
+
+    /**
+     * how long the lowered rate is kept after the last request is released
+     */
+    private static final int RESTORE_DELAY = 500;//MS
+
+    private static final WeakHashMap<Window, Request> sRequests = new WeakHashMap<Window, Request>();
+
+    private static Handler sHandler;
+
+    private FrameRateHint() {
+    }
+
+    /**
+     * @param view      view whose window should prefer the rate
+     * @param frameRate preferred frames per second
+     * @return window the request is made on, pass it to {@link #release(Window)}, null if ignored
+     */
+    @TargetApi(21)
+    public static Window request(View view, float frameRate) {
+        //a detached view can't tell when its window is gone
+        if (Build.VERSION.SDK_INT < 21 || frameRate <= 0 || !ViewCompat.isAttachedToWindow(view)) {
+            return null;
+        }
+        final Window window = findWindow(view.getContext());
+        if (window == null) {
+            return null;
+        }
+        final WindowManager.LayoutParams lp = window.getAttributes();
+        Request request = sRequests.get(window);
+        if (request == null) {
+            request = new Request(window, view.getRootView(), lp.preferredRefreshRate);
+            sRequests.put(window, request);
+        } else if (request.count == 0) {
+            //released a moment ago, rate has not been restored yet
+            getHandler().removeCallbacks(request);
+        }
+        request.count++;
+        if (request.interrupted) {
+            //not lowered again until every holder of the interrupted request releases it
+            return window;
+        }
+        //the highest of concurrent requests wins, so no animation runs slower than it asked
+        request.frameRate = Math.max(request.frameRate, frameRate);
+        if (lp.preferredRefreshRate != request.frameRate) {
+            lp.preferredRefreshRate = request.frameRate;
+            window.setAttributes(lp);
+        }
+        return window;
+    }
+
+    @TargetApi(21)
+    public static void release(Window window) {
+        if (window == null) {
+            return;
+        }
+        final Request request = sRequests.get(window);
+        if (request == null || request.count == 0 || --request.count > 0) {
+            return;
+        }
+        if (request.interrupted) {
+            //rate has been restored already
+            request.drop(window);
+            return;
+        }
+        request.frameRate = 0;
+        getHandler().postDelayed(request, RESTORE_DELAY);
+    }
+
+    /**
+     * restore the rate window of view preferred before right away, eg. once user touches it.
+     * requests made on the window keep their holders, but don't lower the rate again until all of them
+     * are released, a request made after that lowers it as usual.
+     */
+    @TargetApi(21)
+    public static void interrupt(View view) {
+        if (Build.VERSION.SDK_INT < 21 || sRequests.isEmpty()) {
+            return;
+        }
+        final Window window = findWindow(view.getContext());
+        final Request request = window == null ? null : sRequests.get(window);
+        if (request == null || request.interrupted) {
+            return;
+        }
+        getHandler().removeCallbacks(request);
+        if (request.count == 0) {
+            //waiting to be restored
+            request.run();
+            return;
+        }
+        request.interrupted = true;
+        request.restore(window);
+    }
+
+    private static Handler getHandler() {
+        if (sHandler == null) {
+            sHandler = new Handler(Looper.getMainLooper());
+        }
+        return sHandler;
+    }
+
+    private static Window findWindow(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return ((Activity) context).getWindow();
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    @TargetApi(21)
+    private static class Request implements Runnable, View.OnAttachStateChangeListener {
+        /**
+         * weak, sRequests would never drop a window its own value refers to, root view refers to window as well
+         */
+        final WeakReference<Window> window;
+        final WeakReference<View> root;
+        final float originalFrameRate;
+        float frameRate;
+        int count;
+        boolean interrupted;
+
+        /**
+         * @param root root view of an attached view in window, detached once window is gone
+         */
+        Request(Window window, View root, float originalFrameRate) {
+            this.window = new WeakReference<Window>(window);
+            this.root = new WeakReference<View>(root);
+            this.originalFrameRate = originalFrameRate;
+            root.addOnAttachStateChangeListener(this);
+        }
+
+        void restore(Window window) {
+            final WindowManager.LayoutParams lp = window.getAttributes();
+            if (lp.preferredRefreshRate != originalFrameRate) {
+                lp.preferredRefreshRate = originalFrameRate;
+                window.setAttributes(lp);
+            }
+        }
+
+        void drop(Window window) {
+            final View root = this.root.get();
+            if (root != null) {
+                root.removeOnAttachStateChangeListener(this);
+            }
+            if (sRequests.get(window) == this) {
+                sRequests.remove(window);
+            }
+        }
+
+        /**
+         * restore rate window preferred before, unless requested again meanwhile
+         */
+        @Override
+        public void run() {
+            final Window window = this.window.get();
+            if (count > 0 || window == null) {
+                return;
+            }
+            drop(window);
+            restore(window);
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+        }
+
+        /**
+         * views of requests are gone, drop requests never released, eg. of a drawable discarded without being stopped
+         */
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            v.removeOnAttachStateChangeListener(this);
+            getHandler().removeCallbacks(this);
+            count = 0;
+            final Window window = this.window.get();
+            if (window != null) {
+                drop(window);
+                //views may have lived in a dialog of the window, which stays
+                restore(window);
+            }
+        }
+    }
+}
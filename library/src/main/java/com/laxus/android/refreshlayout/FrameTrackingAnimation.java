@@ -0,0 +1,173 @@
+package com.laxus.android.refreshlayout;
+
+import android.content.Context;
+import android.view.WindowManager;
+import android.view.animation.Animation;
+import android.view.animation.Transformation;
+
+/**
+ * An {@link Animation} that counts its rendered frames against the frames display could have shown.
+ * each run, or each cycle of a repeating animation, is reported to the {@link FrameListener} installed by
+ * {@link #setFrameListener(Context, FrameListener)}. nothing is tracked while no listener is installed.
+ * it is also the single time source of library animations: the drawing time of current frame,
+ * which is monotonic and the same for every animation drawn in that frame, see {@link #getElapsedTime()}.
+ */
+public abstract class FrameTrackingAnimation extends Animation {
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    public interface FrameListener {
+        /**
+         * @param name                   name of the animation
+         * @param expectedFrames         frames display could have shown during this run
+         * @param renderedFrames         frames actually rendered
+         * @param worstFrameIntervalMill longest time between two rendered frames in milliseconds
+         */
+        void onAnimationFrames(String name, int expectedFrames, int renderedFrames, long worstFrameIntervalMill);
+    }
+
+    private static volatile FrameListener sFrameListener;
+    private static volatile float sFrameIntervalMill = 1000f / DEFAULT_REFRESH_RATE;
+
+    private final String mName;
+
+    private long mFrameTime;
+
+    /**
+     * animation time runs this many times slower than frame time
+     */
+    private float mTimeScale = 1f;
+    private long mTimeOrigin = -1;
+
+    /**
+     * time next run starts as if it has already played, -1 to start from the beginning
+     */
+    private long mResumeTime = -1;
+
+    private int mRenderedFrames;
+    private long mFirstFrameTime;
+    private long mLastFrameTime;
+    private long mWorstFrameInterval;
+
+    public FrameTrackingAnimation(String name) {
+        mName = name;
+    }
+
+    /**
+     * install a listener to receive frame accounting of every tracked animation, null to uninstall.
+     *
+     * @param context used to read display refresh rate
+     */
+    public static void setFrameListener(Context context, FrameListener listener) {
+        if (listener != null) {
+            sFrameIntervalMill = getFrameIntervalMill(context);
+        }
+        sFrameListener = listener;
+    }
+
+    /**
+     * @return milliseconds between two frames of the default display, as if 60Hz when unknown
+     */
+    static float getFrameIntervalMill(Context context) {
+        final WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        final float refreshRate = wm.getDefaultDisplay().getRefreshRate();
+        return 1000f / (refreshRate > 0 ? refreshRate : DEFAULT_REFRESH_RATE);
+    }
+
+    @Override
+    public boolean getTransformation(long currentTime, Transformation outTransformation) {
+        final long frameTime = currentTime;
+        if (mTimeScale != 1f) {
+            if (mTimeOrigin < 0) {
+                mTimeOrigin = currentTime;
+            }
+            currentTime = mTimeOrigin + (long) ((currentTime - mTimeOrigin) / mTimeScale);
+        }
+        if (mResumeTime >= 0) {
+            if (getStartTime() == START_ON_FIRST_FRAME) {
+                setStartTime(currentTime - mResumeTime);
+            }
+            mResumeTime = -1;
+        }
+        mFrameTime = currentTime;
+        final boolean more = super.getTransformation(currentTime, outTransformation);
+        final FrameListener listener = sFrameListener;
+        if (listener != null) {
+            onFrame(frameTime);
+            //start time is reset when a repeating animation starts next cycle
+            if (!more || getStartTime() == START_ON_FIRST_FRAME) {
+                report(listener);
+            }
+        }
+        return more;
+    }
+
+    /**
+     * stretch animation time, eg. to follow system animator duration scale. takes effect from next run.
+     *
+     * @param timeScale greater than 0, 2 for twice slower
+     */
+    public void setTimeScale(float timeScale) {
+        mTimeScale = timeScale;
+    }
+
+    /**
+     * only valid in {@link #applyTransformation(float, Transformation)}, use it instead of any wall clock
+     *
+     * @return milliseconds from the first frame of this run to current frame
+     */
+    protected final long getElapsedTime() {
+        return Math.max(0, mFrameTime - getStartTime());
+    }
+
+    /**
+     * @return milliseconds current run or cycle has played, 0 if no frame of it has been drawn
+     */
+    long getPlayedTime() {
+        if (!hasStarted() || getStartTime() == START_ON_FIRST_FRAME) {
+            return 0;
+        }
+        return Math.max(0, mFrameTime - getStartTime());
+    }
+
+    /**
+     * next run starts from the given played time instead of the beginning, to resume a paused animation.
+     * call it after {@link #reset()}.
+     */
+    void resumeFrom(long playedTime) {
+        mResumeTime = playedTime;
+    }
+
+    @Override
+    public void cancel() {
+        report(sFrameListener);
+        super.cancel();
+    }
+
+    @Override
+    public void reset() {
+        mTimeOrigin = -1;
+        report(sFrameListener);
+        super.reset();
+    }
+
+    private void onFrame(long frameTime) {
+        if (mRenderedFrames == 0) {
+            mFirstFrameTime = frameTime;
+        } else {
+            mWorstFrameInterval = Math.max(mWorstFrameInterval, frameTime - mLastFrameTime);
+        }
+        mLastFrameTime = frameTime;
+        mRenderedFrames++;
+    }
+
+    private void report(FrameListener listener) {
+        if (listener != null && mRenderedFrames > 0) {
+            final int expectedFrames = Math.max(mRenderedFrames,
+                    Math.round((mLastFrameTime - mFirstFrameTime) / sFrameIntervalMill) + 1);
+            listener.onAnimationFrames(mName, expectedFrames, mRenderedFrames, mWorstFrameInterval);
+        }
+        mRenderedFrames = 0;
+        mWorstFrameInterval = 0;
+    }
+}
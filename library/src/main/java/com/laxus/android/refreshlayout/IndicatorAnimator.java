@@ -0,0 +1,281 @@
+package com.laxus.android.refreshlayout;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.provider.Settings;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.view.animation.Animation;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Transformation;
+
+/**
+ * Runs the endless animation of a loading indicator, honoring a frame rate cap and system motion settings.
+ * <ul>
+ * <li>animator duration scale of 0 shows a still frame of the animation, other scales stretch it</li>
+ * <li>power save mode caps the animation at {@link #POWER_SAVE_FRAME_RATE}</li>
+ * <li>a capped animation is stepped on its own instead of being redrawn every display frame</li>
+ * </ul>
+ * system settings are read each time the indicator starts or resumes, and watched while it runs,
+ * a changed setting takes effect from the same phase.
+ * a paused animation releases its frame callbacks and resumes from the same phase.
+ */
+public class IndicatorAnimator implements Runnable {
+
+    public static final int POWER_SAVE_FRAME_RATE = 20;
+
+    /**
+     * wake up a bit early so the step lands on the frame it is due
+     */
+    private static final int FRAME_SLACK = 4;//MS
+
+    private final View mView;
+    private final FrameTrackingAnimation mAnimation;
+    private final long mStillFrameTime;
+    private final Transformation mTransformation = new Transformation();
+
+    private int mFrameRateCap;
+
+    private boolean mRunning;
+    private boolean mStill;
+    private boolean mStepping;
+    private long mStepInterval;
+
+    private boolean mPaused;
+    private long mPausedTime;
+
+    /**
+     * settings current run was started with
+     */
+    private float mDurationScale;
+    private boolean mPowerSaveMode;
+
+    /**
+     * notified of duration scale and power save mode changes, registered while running and not paused
+     */
+    private ContentObserver mSettingsObserver;
+    private BroadcastReceiver mPowerSaveReceiver;
+    private boolean mWatchingSettings;
+
+    /**
+     * @param view           view the animation invalidates
+     * @param animation      endless animation of the indicator
+     * @param stillFrameTime elapsed time of the frame shown when system animations are off
+     */
+    public IndicatorAnimator(View view, FrameTrackingAnimation animation, long stillFrameTime) {
+        mView = view;
+        mAnimation = animation;
+        mStillFrameTime = stillFrameTime;
+    }
+
+    /**
+     * @param frameRate frames per second animation is stepped at, 0 to draw every display frame
+     */
+    public void setFrameRateCap(int frameRate) {
+        mFrameRateCap = frameRate;
+    }
+
+    public void start() {
+        stop();
+        mRunning = true;
+        begin(0);
+    }
+
+    /**
+     * stop drawing frames but keep the phase, no-op if not running or already paused
+     */
+    public void pause() {
+        if (!mRunning || mPaused) {
+            return;
+        }
+        mPausedTime = mStill ? 0 : mAnimation.getPlayedTime();
+        unwatchSettings();
+        halt();
+        mPaused = true;
+    }
+
+    /**
+     * continue a paused animation from where it was paused
+     */
+    public void resume() {
+        if (!mPaused) {
+            return;
+        }
+        mPaused = false;
+        begin(mPausedTime);
+    }
+
+    private void begin(long playedTime) {
+        mAnimation.reset();
+        //a canceled animation keeps its start time, start over from next frame
+        mAnimation.setStartTime(Animation.START_ON_FIRST_FRAME);
+        mAnimation.resumeFrom(playedTime);
+        final Context context = mView.getContext();
+        final float durationScale = getDurationScale(context);
+        mDurationScale = durationScale;
+        mPowerSaveMode = isPowerSaveMode(context);
+        watchSettings(context);
+        if (durationScale == 0) {
+            //reduced motion, keep indicator visible with a still frame
+            mStill = true;
+            mAnimation.setTimeScale(1f);
+            final long now = AnimationUtils.currentAnimationTimeMillis();
+            mAnimation.getTransformation(now, mTransformation);
+            mAnimation.getTransformation(now + mStillFrameTime, mTransformation);
+            mView.invalidate();
+            return;
+        }
+        mAnimation.setTimeScale(durationScale);
+        int frameRate = mFrameRateCap;
+        if (mPowerSaveMode) {
+            frameRate = frameRate > 0 ? Math.min(frameRate, POWER_SAVE_FRAME_RATE) : POWER_SAVE_FRAME_RATE;
+        }
+        if (frameRate <= 0) {
+            mView.clearAnimation();
+            mView.startAnimation(mAnimation);
+            return;
+        }
+        mStepping = true;
+        mStepInterval = Math.max(0, 1000 / frameRate - FRAME_SLACK);
+        ViewCompat.postOnAnimation(mView, this);
+    }
+
+    private void checkSettings() {
+        if (!mRunning || mPaused) {
+            return;
+        }
+        final Context context = mView.getContext();
+        if (getDurationScale(context) == mDurationScale && isPowerSaveMode(context) == mPowerSaveMode) {
+            return;
+        }
+        final long playedTime = mStill ? 0 : mAnimation.getPlayedTime();
+        halt();
+        begin(playedTime);
+    }
+
+    @TargetApi(21)
+    private void watchSettings(Context context) {
+        if (mWatchingSettings) {
+            return;
+        }
+        mWatchingSettings = true;
+        final Uri durationScaleUri = getDurationScaleUri();
+        if (durationScaleUri != null) {
+            if (mSettingsObserver == null) {
+                mSettingsObserver = new ContentObserver(new Handler(Looper.getMainLooper())) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        checkSettings();
+                    }
+                };
+            }
+            context.getContentResolver().registerContentObserver(durationScaleUri, false, mSettingsObserver);
+        }
+        if (Build.VERSION.SDK_INT >= 21) {
+            if (mPowerSaveReceiver == null) {
+                mPowerSaveReceiver = new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        checkSettings();
+                    }
+                };
+            }
+            context.getApplicationContext().registerReceiver(mPowerSaveReceiver,
+                    new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+        }
+    }
+
+    private void unwatchSettings() {
+        if (!mWatchingSettings) {
+            return;
+        }
+        mWatchingSettings = false;
+        final Context context = mView.getContext();
+        if (mSettingsObserver != null) {
+            context.getContentResolver().unregisterContentObserver(mSettingsObserver);
+        }
+        if (mPowerSaveReceiver != null) {
+            context.getApplicationContext().unregisterReceiver(mPowerSaveReceiver);
+        }
+    }
+
+    public void stop() {
+        unwatchSettings();
+        halt();
+        mPaused = false;
+        mRunning = false;
+    }
+
+    private void halt() {
+        if (mStepping) {
+            mStepping = false;
+            mView.removeCallbacks(this);
+        } else if (mView.getAnimation() == mAnimation) {
+            mView.clearAnimation();
+        }
+        if (mAnimation.hasStarted() && !mAnimation.hasEnded()) {
+            mAnimation.cancel();
+        }
+        mStill = false;
+    }
+
+    /**
+     * @return true if started and not stopped, a paused animation is still running
+     */
+    public boolean isRunning() {
+        return mRunning && (mPaused || mStill || mStepping || !mAnimation.hasEnded());
+    }
+
+    @Override
+    public void run() {
+        if (!mStepping) {
+            return;
+        }
+        final boolean more = mAnimation.getTransformation(AnimationUtils.currentAnimationTimeMillis(), mTransformation);
+        mView.invalidate();
+        if (more) {
+            ViewCompat.postOnAnimationDelayed(mView, this, mStepInterval);
+        } else {
+            mStepping = false;
+        }
+    }
+
+    private static float getDurationScale(Context context) {
+        final ContentResolver resolver = context.getContentResolver();
+        if (Build.VERSION.SDK_INT >= 17) {
+            return Settings.Global.getFloat(resolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        } else if (Build.VERSION.SDK_INT >= 16) {
+            //Settings.System.ANIMATOR_DURATION_SCALE
+            return Settings.System.getFloat(resolver, "animator_duration_scale", 1f);
+        }
+        return 1f;
+    }
+
+    private static Uri getDurationScaleUri() {
+        if (Build.VERSION.SDK_INT >= 17) {
+            return Settings.Global.getUriFor(Settings.Global.ANIMATOR_DURATION_SCALE);
+        } else if (Build.VERSION.SDK_INT >= 16) {
+            return Settings.System.getUriFor("animator_duration_scale");
+        }
+        return null;
+    }
+
+    @TargetApi(21)
+    private static boolean isPowerSaveMode(Context context) {
+        if (Build.VERSION.SDK_INT < 21) {
+            return false;
+        }
+        final PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        return pm != null && pm.isPowerSaveMode();
+    }
+}
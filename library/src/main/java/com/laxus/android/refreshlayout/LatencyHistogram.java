@@ -0,0 +1,148 @@
+package com.laxus.android.refreshlayout;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, lock free histogram of latencies in microseconds.
+ * values are grouped into log2 buckets, each split into {@link #SUB_BUCKET_COUNT} linear sub buckets,
+ * so any percentile is reported with at most 25% error whatever the magnitude is.
+ * recording never allocates and could be called from any thread.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * @param micros latency in microseconds, negative values are ignored
+     */
+    public void record(long micros) {
+        if (micros < 0) {
+            return;
+        }
+        mBuckets.incrementAndGet(bucketIndex(micros));
+        mCount.incrementAndGet();
+        mSum.addAndGet(micros);
+        long max;
+        do {
+            max = mMax.get();
+        } while (micros > max && !mMax.compareAndSet(max, micros));
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    /**
+     * take a copy of current state, concurrent records may or may not be included
+     */
+    public Snapshot snapshot() {
+        final long[] buckets = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            buckets[i] = mBuckets.get(i);
+            count += buckets[i];
+        }
+        return new Snapshot(buckets, count, mSum.get(), mMax.get());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        final long subBucket = index % SUB_BUCKET_COUNT;
+        return (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long bucketUpperBound(int index) {
+        return index + 1 < BUCKET_COUNT ? bucketLowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * An immutable copy of a {@link LatencyHistogram}
+     */
+    public static class Snapshot {
+        private final long[] mBuckets;
+        private final long mCount;
+        private final long mSum;
+        private final long mMax;
+
+        Snapshot(long[] buckets, long count, long sum, long max) {
+            mBuckets = buckets;
+            mCount = count;
+            mSum = sum;
+            mMax = max;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getMeanMicros() {
+            return mCount == 0 ? 0 : mSum / mCount;
+        }
+
+        public long getMaxMicros() {
+            return mMax;
+        }
+
+        /**
+         * @param percentile in range [0..100]
+         * @return upper bound of the bucket where given percentile falls, 0 if nothing recorded
+         */
+        public long getPercentileMicros(double percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(mCount * Math.min(100, percentile) / 100));
+            long seen = 0;
+            for (int i = 0; i < mBuckets.length; ++i) {
+                seen += mBuckets[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), mMax);
+                }
+            }
+            return mMax;
+        }
+
+        public long getP50Micros() {
+            return getPercentileMicros(50);
+        }
+
+        public long getP90Micros() {
+            return getPercentileMicros(90);
+        }
+
+        public long getP99Micros() {
+            return getPercentileMicros(99);
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + mCount + ", mean=" + getMeanMicros() + "us, p50=" + getP50Micros()
+                    + "us, p90=" + getP90Micros() + "us, p99=" + getP99Micros() + "us, max=" + mMax + "us";
+        }
+    }
+}
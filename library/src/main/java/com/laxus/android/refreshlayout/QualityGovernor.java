@@ -0,0 +1,76 @@
+package com.laxus.android.refreshlayout;
+
+/**
+ * Picks a rendering quality of RefreshManager from display frame intervals while RefreshLayout is moving.
+ * quality drops one level after a window of frames with too many slow ones,
+ * and comes back one level after a window without any.
+ * intervals should be measured between consecutive display frames, eg. by Choreographer,
+ * not between draws which also stop when nothing changes.
+ */
+class QualityGovernor {
+
+    static final int WINDOW_FRAMES = 30;
+    private static final float DOWNGRADE_SLOW_RATIO = .2f;
+    /**
+     * a frame taking this many frame intervals or longer is slow
+     */
+    private static final float SLOW_FRAME_FACTOR = 1.5f;
+
+    private final float mSlowIntervalMill;
+
+    private int mFrames;
+    private int mSlowFrames;
+
+    @RefreshLayout.RenderQuality
+    private int mQuality = RefreshLayout.QUALITY_HIGH;
+
+    /**
+     * @param frameIntervalMill interval between display frames in milliseconds
+     */
+    QualityGovernor(float frameIntervalMill) {
+        mSlowIntervalMill = SLOW_FRAME_FACTOR * frameIntervalMill;
+    }
+
+    @RefreshLayout.RenderQuality
+    int getQuality() {
+        return mQuality;
+    }
+
+    void reset() {
+        mFrames = 0;
+        mSlowFrames = 0;
+        mQuality = RefreshLayout.QUALITY_HIGH;
+    }
+
+    /**
+     * @param intervalMill time since previous display frame
+     * @return true if quality changed
+     */
+    boolean onFrame(float intervalMill) {
+        if (intervalMill <= 0) {
+            return false;
+        }
+        mFrames++;
+        if (intervalMill >= mSlowIntervalMill) {
+            mSlowFrames++;
+        }
+        if (mFrames < WINDOW_FRAMES) {
+            return false;
+        }
+        final int quality;
+        if (mSlowFrames > WINDOW_FRAMES * DOWNGRADE_SLOW_RATIO) {
+            quality = Math.min(RefreshLayout.QUALITY_LOW, mQuality + 1);
+        } else if (mSlowFrames == 0) {
+            quality = Math.max(RefreshLayout.QUALITY_HIGH, mQuality - 1);
+        } else {
+            quality = mQuality;
+        }
+        mFrames = 0;
+        mSlowFrames = 0;
+        if (quality == mQuality) {
+            return false;
+        }
+        mQuality = quality;
+        return true;
+    }
+}
@@ -0,0 +1,163 @@
+package com.laxus.android.refreshlayout;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Share refreshes between RefreshLayouts backed by the same data source, eg. tabs of a ViewPager.
+ * layouts are registered under a data source key, a refresh fired by any of them is the only in-flight
+ * refresh of that key: only its {@link RefreshLayout.OnRefreshListener} is notified, other layouts of the key
+ * show refreshing state without notifying theirs. finishing the layout which fired it, or calling
+ * {@link #finishRefresh(String)}, finishes all of them together. finishing any other layout only resets that one,
+ * the refresh ends once the last layout showing it finishes.
+ * layouts are held weakly, a coordinator outliving an Activity doesn't leak its layouts.
+ * all methods should be called on the main thread.
+ */
+public class RefreshCoordinator {
+
+    private final HashMap<String, Group> mGroups = new HashMap<String, Group>();
+
+    /**
+     * register a layout under a data source key, a layout could only be registered under one key
+     */
+    public void register(String key, RefreshLayout layout) {
+        if (layout.mCoordinator != null) {
+            layout.mCoordinator.unregister(layout);
+        }
+        Group group = mGroups.get(key);
+        if (group == null) {
+            group = new Group();
+            mGroups.put(key, group);
+        }
+        group.layouts.add(new WeakReference<RefreshLayout>(layout));
+        layout.mCoordinator = this;
+        layout.mCoordinatorKey = key;
+        if (group.refreshing && !layout.isRefreshing()) {
+            layout.setRefreshingFromCoordinator(true);
+        }
+    }
+
+    public void unregister(RefreshLayout layout) {
+        if (layout.mCoordinator != this) {
+            return;
+        }
+        final Group group = mGroups.get(layout.mCoordinatorKey);
+        layout.mCoordinator = null;
+        layout.mCoordinatorKey = null;
+        if (group == null) {
+            return;
+        }
+        for (int i = group.layouts.size() - 1; i >= 0; --i) {
+            if (group.layouts.get(i).get() == layout) {
+                group.layouts.remove(i);
+            }
+        }
+        if (group.liveLayouts().isEmpty() && !group.refreshing) {
+            mGroups.values().remove(group);
+        }
+    }
+
+    /**
+     * @return whether a refresh of this key is in flight
+     */
+    public boolean isRefreshing(String key) {
+        final Group group = mGroups.get(key);
+        return group != null && group.refreshing;
+    }
+
+    /**
+     * finish in-flight refresh of this key on every layout registered under it
+     */
+    public void finishRefresh(String key) {
+        final Group group = mGroups.get(key);
+        if (group == null || !group.refreshing) {
+            return;
+        }
+        group.refreshing = false;
+        group.owner = null;
+        //copy, layouts may unregister when finished
+        for (RefreshLayout layout : group.liveLayouts()) {
+            layout.setRefreshingFromCoordinator(false);
+        }
+        if (group.liveLayouts().isEmpty()) {
+            mGroups.remove(key);
+        }
+    }
+
+    /**
+     * called when a registered layout is about to notify its listener
+     *
+     * @return true if layout should notify its listener, false if it joined an in-flight refresh
+     */
+    boolean onRefreshFired(RefreshLayout layout) {
+        final Group group = mGroups.get(layout.mCoordinatorKey);
+        if (group == null) {
+            return true;
+        }
+        if (group.refreshing || !layout.isRefreshing()) {
+            //joined, or a late fire of a layout already finished, eg. by a canceled prepare animation
+            return false;
+        }
+        group.refreshing = true;
+        group.owner = new WeakReference<RefreshLayout>(layout);
+        for (RefreshLayout other : group.liveLayouts()) {
+            if (other != layout) {
+                other.setRefreshingFromCoordinator(true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * called when a registered layout is set to finish refreshing
+     */
+    void onRefreshFinished(RefreshLayout layout) {
+        final Group group = mGroups.get(layout.mCoordinatorKey);
+        if (group == null || !group.refreshing) {
+            return;
+        }
+        if (group.owner != null && group.owner.get() == layout) {
+            finishRefresh(layout.mCoordinatorKey);
+            return;
+        }
+        if (!layout.isRefreshing()) {
+            //not showing the refresh, nothing to finish
+            return;
+        }
+        for (RefreshLayout other : group.liveLayouts()) {
+            if (other != layout && other.isRefreshing()) {
+                //others still show it, this one only resets itself
+                return;
+            }
+        }
+        //last one showing it, owner has gone
+        group.refreshing = false;
+        group.owner = null;
+    }
+
+    private static class Group {
+        final ArrayList<WeakReference<RefreshLayout>> layouts = new ArrayList<WeakReference<RefreshLayout>>(2);
+        boolean refreshing;
+        /**
+         * layout which fired in-flight refresh, null if none
+         */
+        WeakReference<RefreshLayout> owner;
+
+        /**
+         * @return copy of layouts not collected yet, collected ones are dropped
+         */
+        ArrayList<RefreshLayout> liveLayouts() {
+            final ArrayList<RefreshLayout> live = new ArrayList<RefreshLayout>(layouts.size());
+            for (int i = layouts.size() - 1; i >= 0; --i) {
+                final RefreshLayout layout = layouts.get(i).get();
+                if (layout == null) {
+                    layouts.remove(i);
+                } else {
+                    live.add(0, layout);
+                }
+            }
+            return live;
+        }
+    }
+}
@@ -1,25 +1,51 @@
 package com.laxus.android.refreshlayout;
 
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.content.pm.ApplicationInfo;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Process;
 import android.os.SystemClock;
 import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
 import android.support.v4.view.MotionEventCompat;
 import android.support.v4.view.NestedScrollingChild;
 import android.support.v4.view.NestedScrollingChildHelper;
 import android.support.v4.view.NestedScrollingParent;
 import android.support.v4.view.NestedScrollingParentHelper;
+import android.support.v4.view.ScrollingView;
 import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
 import android.widget.AbsListView;
+import android.widget.OverScroller;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A refresh widget that its refresh style is delegated to RefreshManager.
@@ -31,6 +57,13 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
 
     private static final int INVALID_POINTER = -1;
 
+    /**
+     * how much a drag leaving touch slop should be more vertical than horizontal to be claimed
+     */
+    private static final float DRAG_DIRECTION_RATIO = 1.5f;
+
+    private static final String TRACE_REFRESHING = "RefreshLayout.refreshing";
+
     /**
      * above target
      */
@@ -45,32 +78,234 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
     public @interface DrawingOrder {
     }
 
+    /**
+     * create refresh view as soon as RefreshManager is attached
+     */
+    public static final int CREATE_VIEW_IMMEDIATELY = 0;
+    /**
+     * create refresh view when the first gesture begins with target at its top
+     */
+    public static final int CREATE_VIEW_ON_DRAG = 1;
+    /**
+     * create refresh view when main thread becomes idle,
+     * with its resources loaded off the main thread if RefreshManager allows, see {@link RefreshManager#onPreloadView(Context)}
+     */
+    public static final int CREATE_VIEW_ON_IDLE = 2;
+
+    @IntDef({CREATE_VIEW_IMMEDIATELY, CREATE_VIEW_ON_DRAG, CREATE_VIEW_ON_IDLE})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface ViewCreationMode {
+    }
+
     public interface OnRefreshListener {
         void onRefreshing();
     }
 
+    /**
+     * notified when an {@link OnRefreshListener} blocks the main thread longer than budget
+     */
+    public interface OnRefreshViolationListener {
+        /**
+         * @param listenerClass  class of the slow listener
+         * @param durationMillis time spent in {@link OnRefreshListener#onRefreshing()}
+         */
+        void onSlowRefreshListener(Class<?> listenerClass, long durationMillis);
+    }
+
+    private static final long DEFAULT_REFRESH_LISTENER_BUDGET = 16;
+
+    /**
+     * difference tolerated between wall clock and elapsed realtime when restoring refresh policy
+     */
+    private static final long MAX_CLOCK_SKEW = 60 * 1000;//MS
+
+    /**
+     * notified when refreshing state is restored from saved instance state, eg. after rotation or process death
+     */
+    public interface OnRefreshRestoredListener {
+        /**
+         * RefreshLayout shows refreshing again, but no {@link OnRefreshListener} is notified.
+         * if the refresh didn't survive, eg. after process death, start it again or call {@link #setRefreshing(boolean)}
+         * with false, otherwise the spinner never stops.
+         */
+        void onRefreshRestored();
+    }
+
+    public interface OnLoadMoreListener {
+        void onLoadMore();
+    }
+
+    /**
+     * prefetch distance measured in pixels
+     */
+    public static final int PREFETCH_PIXELS = 0;
+    /**
+     * prefetch distance measured in adapter items,
+     * estimated from the average height of laid out children for ScrollingView targets, eg. RecyclerView
+     */
+    public static final int PREFETCH_ITEMS = 1;
+
+    /**
+     * full fidelity rendering
+     */
+    public static final int QUALITY_HIGH = 0;
+    /**
+     * drop costly details that don't carry refresh state, eg. alpha animations or color interpolation
+     */
+    public static final int QUALITY_MEDIUM = 1;
+    /**
+     * bare minimum showing refresh state, eg. no arrow or shadow
+     */
+    public static final int QUALITY_LOW = 2;
+
+    @IntDef({QUALITY_HIGH, QUALITY_MEDIUM, QUALITY_LOW})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface RenderQuality {
+    }
+
+    @IntDef({PREFETCH_PIXELS, PREFETCH_ITEMS})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface PrefetchUnit {
+    }
+
+    /**
+     * drop a refresh triggered while refreshing
+     */
+    public static final int IN_FLIGHT_DROP = 0;
+    /**
+     * merge refreshes triggered while refreshing into a single one fired after current refresh finished
+     */
+    public static final int IN_FLIGHT_MERGE = 1;
+
+    @IntDef({IN_FLIGHT_DROP, IN_FLIGHT_MERGE})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface InFlightTriggerMode {
+    }
+
+    private static final int SUPPRESS_MIN_INTERVAL = 1;
+    private static final int SUPPRESS_RECENTLY_REFRESHED = 2;
+
+    /**
+     * states rejecting a gesture, bits of {@link #mGateMask}
+     */
+    private static final int GATE_NO_MANAGER = 1;
+    private static final int GATE_DISABLED = 1 << 1;
+    private static final int GATE_NOT_ACCEPT_SCROLL = 1 << 2;
+    private static final int GATE_IN_NESTED_SCROLLING = 1 << 3;
+    private static final int GATE_GESTURE_LOCKED = 1 << 4;
+    private static final int GATE_GESTURE_LOST = 1 << 5;
+
+    /**
+     * gates that reject a nested scroll, RM may accept nested scroll while a touch gesture is locked
+     */
+    private static final int NESTED_SCROLL_GATES = GATE_NO_MANAGER | GATE_DISABLED | GATE_NOT_ACCEPT_SCROLL;
+
+    private static final int REFRESH_REQUEST_NONE = 0;
+    private static final int REFRESH_REQUEST_START = 1;
+    private static final int REFRESH_REQUEST_FINISH = 2;
+
     private NestedScrollingChildHelper mNestedScrollingChildHelper;
     private NestedScrollingParentHelper mNestedScrollingParentHelper;
 
     /**
      * attached RefreshManager
      */
-    private RefreshManager mRefreshManager;
+    private volatile RefreshManager mRefreshManager;
 
     private OnRefreshListener mRefreshListener;
 
+    private OnRefreshRestoredListener mRefreshRestoredListener;
+
     private TargetScrollUpListener mTargetScrollUpChecker;
 
     private View mTargetView;
     private View mRefreshView;
 
+    private LoadMoreManager mLoadMoreManager;
+    private View mFooterView;
+    private OnLoadMoreListener mLoadMoreListener;
+    private TargetDistanceToEndListener mTargetDistanceToEndChecker;
+
+    /**
+     * load more when target is within this distance to its end
+     */
+    private int mPrefetchDistance;
+    @PrefetchUnit
+    private int mPrefetchUnit = PREFETCH_PIXELS;
+
+    /**
+     * whether {@link OnLoadMoreListener} has been notified and loading has not finished yet
+     */
+    private boolean mLoadingMore;
+
+    private boolean mScrollChangedListenerAdded;
+
+    /**
+     * scroll position of target seen by last scroll change, to skip scroll changes of other views in window
+     */
+    private int mLastTargetScrollPosition;
+    private int mLastTargetScrollOffset;
+
+    private final ViewTreeObserver.OnScrollChangedListener mTargetScrollChangedListener
+            = new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+            //called for any view scrolled in window
+            if (hasTargetScrolled()) {
+                FrameRateHint.interrupt(RefreshLayout.this);
+                checkLoadMore(true);
+            }
+        }
+    };
+
+    private final Runnable mCheckLoadMoreRunnable = new Runnable() {
+        @Override
+        public void run() {
+            checkLoadMore(false);
+        }
+    };
+
+    /**
+     * content extent of target when {@link OnLoadMoreListener} was last notified, -1 if never
+     */
+    private int mLoadMoreContentExtent = -1;
+
     private int[] mParentOffsetInWindow = new int[2];
     private int[] mParentConsumed = new int[2];
 
     private int mActivePointerId = INVALID_POINTER;
+    private float mInitialDownX;
     private float mInitialDownY;
     private float mLastMotionY;
     private int mTouchSlop;
+    private int mMinimumFlingVelocity;
+
+    /**
+     * tracks velocity of a gesture in touch slop, to decide direction of ambiguous drags
+     */
+    private VelocityTracker mVelocityTracker;
+
+    /**
+     * predicts finger position of RefreshLayout's own drag, null if not enabled
+     */
+    private TouchPredictor mTouchPredictor;
+
+    /**
+     * whether momentum of a fling hitting the top of target is passed to RM
+     */
+    private boolean mFlingAbsorbEnabled;
+
+    /**
+     * replays a fling of target to know its remaining velocity when it hits the top
+     */
+    private OverScroller mFlingTracker;
+
+    private final Runnable mFlingAbsorbChecker = new Runnable() {
+        @Override
+        public void run() {
+            checkFlingAbsorb();
+        }
+    };
 
     /**
      * current drawing order of the refresh view
@@ -88,6 +323,21 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
      */
     private boolean mInNestedScrolling;
 
+    /**
+     * releases refresh view at background trim levels, registered while attached on api 14+
+     */
+    private ComponentCallbacks mTrimMemoryCallbacks;
+
+    /**
+     * whether RefreshLayout can't be seen or used, managers pause their animations meanwhile
+     */
+    private boolean mSuspended = true;
+
+    /**
+     * whether an ancestor accepted nested scrolling for current nested scroll session
+     */
+    private boolean mHasNestedParent;
+
     /**
      * whether gesture has been locked.
      * if refresh is triggered during nestedScrolling or dragging,
@@ -95,6 +345,12 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
      */
     private boolean mGestureLocked;
 
+    /**
+     * GATE_* flags of every state that rejects a gesture except target position,
+     * updated when one of them changes so touch dispatch rejects with a single read
+     */
+    private int mGateMask = GATE_NO_MANAGER;
+
     /**
      * whether gesture end should notify RM
      */
@@ -110,6 +366,196 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
      */
     boolean hasNestedMotion;
 
+    /**
+     * when refresh view of attached RefreshManager will be created
+     */
+    @ViewCreationMode
+    private int mViewCreationMode = CREATE_VIEW_IMMEDIATELY;
+
+    /**
+     * whether refresh view is being created off the main thread
+     */
+    private boolean mCreatingViewAsync;
+
+    /**
+     * refresh requested before refresh view was created
+     */
+    private boolean mPendingRefresh;
+
+    private static final long PRELOAD_KEEP_ALIVE = 1000;//MS
+
+    /**
+     * runs {@link RefreshManager#onPreloadView(Context)} of every layout
+     */
+    private static Executor sPreloadExecutor;
+
+    /**
+     * whether refresh view should be prewarmed once main thread is idle
+     */
+    private boolean mPrewarmOnIdle;
+
+    /**
+     * prewarm requested before refresh view could be drawn
+     */
+    private boolean mPrewarmPending;
+
+    /**
+     * whether refresh view of current RM has been prewarmed
+     */
+    private boolean mPrewarmed;
+
+    /**
+     * offscreen canvas while prewarming without hardware acceleration, null otherwise
+     */
+    private Canvas mPrewarmCanvas;
+
+    /**
+     * latency of refresh stages, null if metrics is not enabled
+     */
+    private RefreshMetrics mMetrics;
+
+    private static final int MAX_PENDING_INPUT_EVENTS = 8;
+
+    /**
+     * latency from drag event to the frame drawing its offset, null if not enabled
+     */
+    private RollingLatency mInputLatency;
+
+    /**
+     * event time of consumed drag events whose offset has not been drawn yet
+     */
+    private final long[] mPendingInputEventTimes = new long[MAX_PENDING_INPUT_EVENTS];
+    private int mPendingInputEventCount;
+    private InputFrameCallback mInputFrameCallback;
+
+    /**
+     * samples display frames for DebugHud and QualityGovernor, only posted while needed
+     */
+    private FrameWatcher mFrameWatcher;
+
+    /**
+     * whether refresh has been fired and RM has not been reset yet
+     */
+    private boolean mRefreshFired;
+
+    /**
+     * recent state transitions, for diagnosing field bugs
+     */
+    private final FlightRecorder mFlightRecorder = new FlightRecorder();
+
+    /**
+     * debug overlay, null unless enabled in a debuggable app
+     */
+    private DebugHud mDebugHud;
+
+    /**
+     * adapts RM rendering quality to frame intervals, null unless enabled
+     */
+    private QualityGovernor mQualityGovernor;
+
+    private OnRefreshViolationListener mRefreshViolationListener;
+
+    /**
+     * main thread budget of {@link OnRefreshListener#onRefreshing()} in milliseconds
+     */
+    private long mRefreshListenerBudget = DEFAULT_REFRESH_LISTENER_BUDGET;
+
+    /**
+     * whether OnRefreshListener should be notified after next frame
+     */
+    private boolean mDispatchRefreshAfterFrame;
+
+    /**
+     * latest refresh state requested off the main thread and not applied yet
+     */
+    private final AtomicInteger mRefreshRequest = new AtomicInteger(REFRESH_REQUEST_NONE);
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mApplyRefreshRequest = new Runnable() {
+        @Override
+        public void run() {
+            final int request = mRefreshRequest.getAndSet(REFRESH_REQUEST_NONE);
+            if (request != REFRESH_REQUEST_NONE) {
+                applyRefreshing(request == REFRESH_REQUEST_START, true);
+            }
+        }
+    };
+
+    private final Runnable mScheduleRefreshRequest = new Runnable() {
+        @Override
+        public void run() {
+            //apply once on next frame, whatever requested till then
+            ViewCompat.postOnAnimation(RefreshLayout.this, mApplyRefreshRequest);
+        }
+    };
+
+    /**
+     * minimum time in milliseconds between two fired refreshes
+     */
+    private long mMinRefreshInterval;
+
+    /**
+     * time in milliseconds after a refresh finished during which a new one is not fired
+     */
+    private long mRecentRefreshTtl;
+
+    @InFlightTriggerMode
+    private int mInFlightTriggerMode = IN_FLIGHT_DROP;
+
+    /**
+     * {@link SystemClock#elapsedRealtime()} of last refresh fired and finished, 0 if none
+     */
+    private long mLastRefreshFiredTime;
+    private long mLastRefreshFinishedTime;
+
+    /**
+     * {@link System#currentTimeMillis()} of last refresh finished, 0 if none
+     */
+    private long mLastRefreshWallTime;
+
+    /**
+     * refreshing state restored from saved instance state, applied right after next layout
+     */
+    private boolean mRestoreRefreshing;
+    private int mRestoreOffset;
+
+    /**
+     * a refresh triggered while refreshing should be started after reset
+     */
+    private boolean mMergedRefreshPending;
+
+    /**
+     * coordinator this layout registered with, and data source key it registered under
+     */
+    RefreshCoordinator mCoordinator;
+    String mCoordinatorKey;
+
+    private final Runnable mMergedRefreshStarter = new Runnable() {
+        @Override
+        public void run() {
+            applyRefreshing(true, false);
+        }
+    };
+
+    private final Runnable mRefreshDispatcher = new Runnable() {
+        @Override
+        public void run() {
+            //refresh may have finished before next frame
+            if (isRefreshing()) {
+                dispatchRefreshListener();
+            }
+        }
+    };
+
+    private final Runnable mPostFrameRefreshDispatcher = new Runnable() {
+        @Override
+        public void run() {
+            //runs at the start of next frame, post again to run after it has been drawn
+            post(mRefreshDispatcher);
+        }
+    };
+
     public RefreshLayout(Context context) {
         this(context, null);
     }
@@ -129,14 +575,24 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
         setNestedScrollingEnabled(true);
 
         mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        mMinimumFlingVelocity = ViewConfiguration.get(context).getScaledMinimumFlingVelocity();
+        //android:enabled is applied without calling setEnabled
+        setGate(GATE_DISABLED, !isEnabled());
 
     }
 
     //region NestedScrollingParent
     @Override
     public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        //a lazily created refresh view is only created when target is at its top
+        if (mRefreshView == null && canTargetScrollUp()) {
+            return false;
+        }
         //some RefreshManager may want to accept nestedScroll in any condition
-        return isEnabled() && acceptScroll() && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+        final boolean accepted = (mGateMask & NESTED_SCROLL_GATES) == 0
+                && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0 && ensureRefreshView();
+        mFlightRecorder.record(FlightRecorder.EVENT_NESTED_START, accepted ? 1 : 0, nestedScrollAxes);
+        return accepted;
     }
 
     @Override
@@ -147,58 +603,88 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
     @Override
     public void onNestedScrollAccepted(View child, View target, int nestedScrollAxes) {
         mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, nestedScrollAxes);
+        mHasNestedParent = startNestedScroll(nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL);
         mInNestedScrolling = true;
+        setGate(GATE_IN_NESTED_SCROLLING, true);
         mNotifyMotionEnd = true;
         mRefreshManager.startConsume();
     }
 
     @Override
     public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
-        if (dy > 0) {
-            int scrolled = mRefreshManager.onConsume(dy);
-            if (Math.abs(scrolled) > 0) {
-                hasNestedMotion = true;
-            }
-            if (scrolled > dy) {
-                throw new IllegalStateException("RM seemed to eat too much{dy=" + dy + ",onScrolling() return=" + scrolled);
+        RefreshTrace.beginSection("RefreshLayout.onNestedPreScroll");
+        try {
+            //scrolling down only gives back what RM consumed, nothing to do in the middle of target
+            if (dy > 0 && mRefreshManager.hasConsumed()) {
+                int scrolled = mRefreshManager.dispatchConsume(dy);
+                if (Math.abs(scrolled) > 0) {
+                    onNestedMotionConsumed();
+                }
+                if (scrolled > dy) {
+                    throw new IllegalStateException("RM seemed to eat too much{dy=" + dy + ",onScrolling() return=" + scrolled);
+                }
+                consumed[1] += scrolled;
             }
-            consumed[1] += scrolled;
-        }
 
-        final int[] parentConsumed = mParentConsumed;
-        if (dispatchNestedPreScroll(dx, dy, parentConsumed, null)) {
-            consumed[0] += parentConsumed[0];
-            consumed[1] += parentConsumed[1];
+            //parent only gets what RM left over, the same motion is never consumed twice
+            final int[] parentConsumed = mParentConsumed;
+            if (mHasNestedParent && dispatchNestedPreScroll(dx - consumed[0], dy - consumed[1], parentConsumed, null)) {
+                consumed[0] += parentConsumed[0];
+                consumed[1] += parentConsumed[1];
+            }
+        } finally {
+            RefreshTrace.endSection();
         }
     }
 
     @Override
     public void onNestedScroll(View target, int dxConsumed, int dyConsumed,
                                int dxUnconsumed, int dyUnconsumed) {
-        dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, mParentOffsetInWindow);
-
-        final int dy = dyUnconsumed + mParentOffsetInWindow[1];
-        if (dy < 0 && !canTargetScrollUp()) {
-            int scrolled = mRefreshManager.onConsume(dyUnconsumed);
-            if (Math.abs(scrolled) > 0) {
-                hasNestedMotion = true;
+        RefreshTrace.beginSection("RefreshLayout.onNestedScroll");
+        try {
+            int dy = dyUnconsumed;
+            if (mHasNestedParent) {
+                dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, mParentOffsetInWindow);
+                //parent moving us in window is the part of unconsumed motion it took
+                dy += mParentOffsetInWindow[1];
+            }
+            if (dy < 0 && !canTargetScrollUp()) {
+                int scrolled = mRefreshManager.dispatchConsume(dy);
+                if (Math.abs(scrolled) > 0) {
+                    onNestedMotionConsumed();
+                }
             }
+        } finally {
+            RefreshTrace.endSection();
         }
     }
 
     @Override
     public void onStopNestedScroll(View target) {
+        mFlightRecorder.record(FlightRecorder.EVENT_NESTED_STOP, hasNestedMotion ? 1 : 0, mNotifyMotionEnd ? 1 : 0);
         mNestedScrollingParentHelper.onStopNestedScroll(target);
         mInNestedScrolling = false;
+        setGate(GATE_IN_NESTED_SCROLLING, false);
         if (mRefreshManager != null && mNotifyMotionEnd) {
+            if (hasNestedMotion && mMetrics != null) {
+                mMetrics.onRelease();
+            }
             mRefreshManager.stopConsume();
         }
-        stopNestedScroll();
+        if (mHasNestedParent) {
+            mHasNestedParent = false;
+            stopNestedScroll();
+        }
         hasNestedMotion = false;
     }
 
     @Override
     public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
+        //target flings toward its top, and header didn't take part in the gesture
+        if (consumed && velocityY < 0 && mFlingAbsorbEnabled && !hasNestedMotion
+                && mRefreshManager != null && !isRefreshing()) {
+            startTrackingFling((int) velocityY);
+        }
         return dispatchNestedFling(velocityX, velocityY, consumed);
     }
 
@@ -206,6 +692,51 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
     public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
         return dispatchNestedPreFling(velocityX, velocityY);
     }
+
+    private void startTrackingFling(int velocityY) {
+        if (mFlingTracker == null) {
+            mFlingTracker = new OverScroller(getContext());
+        }
+        mFlingTracker.fling(0, 0, 0, velocityY, 0, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        removeCallbacks(mFlingAbsorbChecker);
+        ViewCompat.postOnAnimation(this, mFlingAbsorbChecker);
+    }
+
+    private void stopTrackingFling() {
+        removeCallbacks(mFlingAbsorbChecker);
+        if (mFlingTracker != null) {
+            mFlingTracker.abortAnimation();
+        }
+    }
+
+    private void checkFlingAbsorb() {
+        if (!mFlingTracker.computeScrollOffset()) {
+            //fling ended before target reached its top
+            return;
+        }
+        if (mIsBeingDragged || mInNestedScrolling || isRefreshing() || mRefreshView == null) {
+            //a new gesture or a refresh takes over
+            stopTrackingFling();
+            return;
+        }
+        if (canTargetScrollUp()) {
+            ViewCompat.postOnAnimation(this, mFlingAbsorbChecker);
+            return;
+        }
+        final int velocity = (int) Math.abs(mFlingTracker.getCurrVelocity());
+        stopTrackingFling();
+        if (velocity > mMinimumFlingVelocity) {
+            mRefreshManager.onAbsorbFling(velocity);
+        }
+    }
+
+    private void onNestedMotionConsumed() {
+        if (!hasNestedMotion && mMetrics != null) {
+            mMetrics.onDragStart();
+        }
+        hasNestedMotion = true;
+        trackTriggerCrossed();
+    }
     //endregion
 
     //region nested scrolling child
@@ -263,7 +794,7 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
         if (mTargetView == null) {
             for (int i = 0; i < getChildCount(); ++i) {
                 View child = getChildAt(i);
-                if (child != mRefreshView) {
+                if (child != mRefreshView && child != mFooterView) {
                     mTargetView = child;
                     break;
                 }
@@ -289,21 +820,148 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
         }
     }
 
-    void abortScrolling() {
-        if (mInNestedScrolling) {
-            mNotifyMotionEnd = false;
-
-            if (Build.VERSION.SDK_INT < 21) {
-                ((NestedScrollingChild) mTargetView).stopNestedScroll();
-            } else {
-                mTargetView.stopNestedScroll();
-            }
-            //if fresh triggered during nestedScrolling, then any gesture should be locked,
-            //otherwise RML will continue consuming the scrolling produced by gesture
-            mGestureLocked = true;
+    /**
+     * @param byScroll false if not checked for a scroll of target, but eg. after layout or a finished load
+     */
+    private void checkLoadMore(boolean byScroll) {
+        //never along with a refresh, one load at a time
+        if (mLoadingMore || mLoadMoreListener == null || mTargetView == null || !isEnabled() || isRefreshing()) {
+            return;
+        }
+        final int extent = getTargetContentExtent();
+        if (!byScroll && extent == mLoadMoreContentExtent) {
+            //last load added nothing, eg. failed or no more pages, only a scroll tries again
+            return;
+        }
+        if (getTargetDistanceToEnd() <= mPrefetchDistance) {
+            mLoadMoreContentExtent = extent;
+            setLoadingMoreInternal(true);
+            mLoadMoreListener.onLoadMore();
         }
+    }
 
-        if (mIsBeingDragged) {
+    /**
+     * @return size of target content, changes once loaded content is laid out
+     */
+    private int getTargetContentExtent() {
+        if (mTargetView instanceof AbsListView) {
+            return ((AbsListView) mTargetView).getCount();
+        } else if (mTargetView instanceof ScrollingView) {
+            return ((ScrollingView) mTargetView).computeVerticalScrollRange();
+        } else if (mTargetView instanceof ViewGroup && ((ViewGroup) mTargetView).getChildCount() > 0) {
+            final ViewGroup viewGroup = (ViewGroup) mTargetView;
+            return viewGroup.getChildAt(viewGroup.getChildCount() - 1).getBottom();
+        }
+        return mTargetView.getHeight();
+    }
+
+    private boolean hasTargetScrolled() {
+        if (mTargetView == null) {
+            return false;
+        }
+        int position = 0;
+        int offset;
+        if (mTargetView instanceof AbsListView) {
+            final AbsListView absListView = (AbsListView) mTargetView;
+            position = absListView.getFirstVisiblePosition();
+            offset = absListView.getChildCount() > 0 ? absListView.getChildAt(0).getTop() : 0;
+        } else if (mTargetView instanceof ScrollingView) {
+            offset = ((ScrollingView) mTargetView).computeVerticalScrollOffset();
+        } else {
+            offset = mTargetView.getScrollY();
+        }
+        if (position == mLastTargetScrollPosition && offset == mLastTargetScrollOffset) {
+            return false;
+        }
+        mLastTargetScrollPosition = position;
+        mLastTargetScrollOffset = offset;
+        return true;
+    }
+
+    private int getTargetDistanceToEnd() {
+        if (mTargetDistanceToEndChecker != null) {
+            return mTargetDistanceToEndChecker.getTargetDistanceToEnd(mPrefetchUnit);
+        }
+        if (mTargetView instanceof AbsListView) {
+            final AbsListView absListView = (AbsListView) mTargetView;
+            final int itemsAfter = absListView.getCount() - 1 - absListView.getLastVisiblePosition();
+            if (mPrefetchUnit == PREFETCH_ITEMS) {
+                return Math.max(0, itemsAfter);
+            }
+            if (itemsAfter == 0 && absListView.getChildCount() > 0) {
+                final View last = absListView.getChildAt(absListView.getChildCount() - 1);
+                return Math.max(0, last.getBottom() - (absListView.getHeight() - absListView.getPaddingBottom()));
+            }
+        } else if (mTargetView instanceof ScrollingView) {
+            final ScrollingView scrollingView = (ScrollingView) mTargetView;
+            final int pixels = Math.max(0, scrollingView.computeVerticalScrollRange()
+                    - scrollingView.computeVerticalScrollOffset() - scrollingView.computeVerticalScrollExtent());
+            if (mPrefetchUnit == PREFETCH_PIXELS) {
+                return pixels;
+            }
+            if (mTargetView instanceof ViewGroup && ((ViewGroup) mTargetView).getChildCount() > 0) {
+                //items of RecyclerView are its children, estimate count from their average height
+                final ViewGroup viewGroup = (ViewGroup) mTargetView;
+                final int childCount = viewGroup.getChildCount();
+                final int itemHeight = (viewGroup.getChildAt(childCount - 1).getBottom()
+                        - viewGroup.getChildAt(0).getTop()) / childCount;
+                if (itemHeight > 0) {
+                    return (pixels + itemHeight - 1) / itemHeight;
+                }
+            }
+        }
+        //distance unknown, only load more at the end
+        return ViewCompat.canScrollVertically(mTargetView, 1) ? Integer.MAX_VALUE : 0;
+    }
+
+    private void setLoadingMoreInternal(boolean loading) {
+        if (mLoadingMore == loading) {
+            return;
+        }
+        mLoadingMore = loading;
+        if (mLoadMoreManager != null && mFooterView != null) {
+            mLoadMoreManager.onLoadingMoreChanged(mFooterView, loading);
+        }
+        if (!loading) {
+            //a short page may leave target within prefetch distance without any further scroll,
+            //posted so that loaded items are laid out first
+            removeCallbacks(mCheckLoadMoreRunnable);
+            post(mCheckLoadMoreRunnable);
+        }
+    }
+
+    private void updateScrollChangedListener() {
+        final boolean add = mLoadMoreListener != null && ViewCompat.isAttachedToWindow(this);
+        if (add == mScrollChangedListenerAdded) {
+            return;
+        }
+        mScrollChangedListenerAdded = add;
+        if (add) {
+            getViewTreeObserver().addOnScrollChangedListener(mTargetScrollChangedListener);
+        } else {
+            getViewTreeObserver().removeOnScrollChangedListener(mTargetScrollChangedListener);
+        }
+    }
+
+    void abortScrolling() {
+        mFlightRecorder.record(FlightRecorder.EVENT_ABORT_SCROLLING,
+                (mInNestedScrolling ? FlightRecorder.ABORT_NESTED_SCROLLING : 0)
+                        | (mIsBeingDragged ? FlightRecorder.ABORT_DRAGGING : 0), 0);
+        if (mInNestedScrolling) {
+            mNotifyMotionEnd = false;
+
+            if (Build.VERSION.SDK_INT < 21) {
+                ((NestedScrollingChild) mTargetView).stopNestedScroll();
+            } else {
+                mTargetView.stopNestedScroll();
+            }
+            //if fresh triggered during nestedScrolling, then any gesture should be locked,
+            //otherwise RML will continue consuming the scrolling produced by gesture
+            mGestureLocked = true;
+            setGate(GATE_GESTURE_LOCKED, true);
+        }
+
+        if (mIsBeingDragged) {
             mNotifyMotionEnd = false;
             //finish gesture
             final long now = SystemClock.uptimeMillis();
@@ -312,50 +970,437 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
             onTouchEvent(cancelEvent);
 
             mGestureLocked = true;
+            setGate(GATE_GESTURE_LOCKED, true);
+
+        }
+    }
 
+    /**
+     * put RM in refreshing state saved before, without animation or firing a refresh
+     */
+    private final Runnable mRestoredRefreshingApplier = new Runnable() {
+        @Override
+        public void run() {
+            //canceled or RM replaced meanwhile
+            if (mRestoreRefreshing && mRefreshView != null) {
+                applyRestoredRefreshing();
+            }
+        }
+    };
+
+    private void applyRestoredRefreshing() {
+        mRestoreRefreshing = false;
+        if (isRefreshing()) {
+            return;
+        }
+        if (!mRefreshFired) {
+            //finishing the restored refresh still counts as a completed refresh
+            mRefreshFired = true;
+            RefreshTrace.beginAsyncSection(TRACE_REFRESHING, System.identityHashCode(this));
+        }
+        mRefreshManager.restoreRefreshing(mRestoreOffset);
+        if (mCoordinator != null && !mCoordinator.onRefreshFired(this)) {
+            //joined an in-flight refresh of the same data source, its owner finishes it
+            return;
+        }
+        if (mRefreshRestoredListener != null) {
+            mRefreshRestoredListener.onRefreshRestored();
         }
     }
 
     void fireRefreshEvent() {
+        if (!isRefreshing()) {
+            //a canceled prepare animation ends after RM was set to finish, nothing to fire
+            return;
+        }
+        mFlightRecorder.record(FlightRecorder.EVENT_REFRESH_FIRED);
+        if (mDebugHud != null) {
+            mDebugHud.onRefreshFired();
+        }
+        mLastRefreshFiredTime = SystemClock.elapsedRealtime();
+        if (!mRefreshFired) {
+            mRefreshFired = true;
+            RefreshTrace.beginAsyncSection(TRACE_REFRESHING, System.identityHashCode(this));
+        }
+        if (mMetrics != null) {
+            mMetrics.onRefreshFired();
+        }
+        if (mCoordinator != null && !mCoordinator.onRefreshFired(this)) {
+            //joined an in-flight refresh of the same data source
+            return;
+        }
         if (mRefreshListener != null) {
-            mRefreshListener.onRefreshing();
+            if (mDispatchRefreshAfterFrame) {
+                ViewCompat.postOnAnimation(this, mPostFrameRefreshDispatcher);
+            } else {
+                dispatchRefreshListener();
+            }
+        }
+    }
+
+    private void dispatchRefreshListener() {
+        final OnRefreshListener listener = mRefreshListener;
+        if (listener == null) {
+            return;
+        }
+        if (mRefreshViolationListener == null) {
+            listener.onRefreshing();
+            return;
+        }
+        final long start = SystemClock.uptimeMillis();
+        listener.onRefreshing();
+        final long duration = SystemClock.uptimeMillis() - start;
+        if (duration > mRefreshListenerBudget && mRefreshViolationListener != null) {
+            mRefreshViolationListener.onSlowRefreshListener(listener.getClass(), duration);
+        }
+    }
+
+    void onRefreshReset() {
+        mFlightRecorder.record(FlightRecorder.EVENT_RESET);
+        removeCallbacks(mPostFrameRefreshDispatcher);
+        removeCallbacks(mRefreshDispatcher);
+        if (mDebugHud != null) {
+            mDebugHud.onRefreshReset();
+        }
+        if (mRefreshFired) {
+            mRefreshFired = false;
+            mLastRefreshFinishedTime = SystemClock.elapsedRealtime();
+            mLastRefreshWallTime = System.currentTimeMillis();
+            RefreshTrace.endAsyncSection(TRACE_REFRESHING, System.identityHashCode(this));
+        }
+        if (mMetrics != null) {
+            mMetrics.onResetComplete();
+        }
+        if (mMergedRefreshPending) {
+            mMergedRefreshPending = false;
+            //start the merged refresh after RM finished its reset
+            post(mMergedRefreshStarter);
         }
     }
 
-    boolean acceptScroll() {
-        return mRefreshManager != null && mRefreshManager.acceptScroll();
+    /**
+     * whether a new refresh should not be fired according to refresh policy
+     */
+    boolean shouldSuppressRefresh() {
+        //uptime stops in deep sleep, a refresh before a night's sleep must not look recent in the morning
+        final long now = SystemClock.elapsedRealtime();
+        int reason = 0;
+        if (mLastRefreshFiredTime != 0 && now - mLastRefreshFiredTime < mMinRefreshInterval) {
+            reason = SUPPRESS_MIN_INTERVAL;
+        } else if (mLastRefreshFinishedTime != 0 && now - mLastRefreshFinishedTime < mRecentRefreshTtl) {
+            reason = SUPPRESS_RECENTLY_REFRESHED;
+        }
+        if (reason != 0) {
+            mFlightRecorder.record(FlightRecorder.EVENT_REFRESH_SUPPRESSED, reason, 0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * a refresh is triggered while RM is refreshing
+     */
+    void onTriggerWhileRefreshing() {
+        if (mInFlightTriggerMode == IN_FLIGHT_MERGE && mRefreshFired) {
+            mMergedRefreshPending = true;
+        }
+    }
+
+    private void trackTriggerCrossed() {
+        if (mMetrics != null && mMetrics.isTriggerPending() && mRefreshManager.canMotionTriggerRefresh()) {
+            mMetrics.onTriggerCrossed();
+        }
+    }
+
+    private void setGate(int gate, boolean set) {
+        if (set) {
+            mGateMask |= gate;
+        } else {
+            mGateMask &= ~gate;
+        }
+    }
+
+    /**
+     * re-evaluate {@link RefreshManager#acceptScroll()} of attached RM
+     */
+    void invalidateAcceptScroll() {
+        setGate(GATE_NOT_ACCEPT_SCROLL, mRefreshManager != null && !mRefreshManager.acceptScroll());
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        setGate(GATE_DISABLED, !enabled);
+    }
+
+    /**
+     * make sure refresh view has been created, create it synchronously if it has not.
+     *
+     * @return false if there is no RefreshManager or refresh view is still being created off the main thread
+     */
+    private boolean ensureRefreshView() {
+        if (mRefreshView != null) {
+            return true;
+        }
+        if (mRefreshManager == null || mCreatingViewAsync) {
+            return false;
+        }
+        attachRefreshView(mRefreshManager.onCreateView(this));
+        return true;
+    }
+
+    private void attachRefreshView(View refreshView) {
+        mRefreshView = refreshView;
+        addView(refreshView);
+        if (mSuspended) {
+            //RM was never told, whatever it starts should stay paused
+            mRefreshManager.onSuspendChanged(true);
+        }
+        if (getMeasuredWidth() > 0) {
+            //created lazily after first layout, RM need a measured view before consuming any motion
+            ensureTargetView();
+            mRefreshManager.measureTargetAndRefresh(mTargetView, mRefreshView,
+                    MeasureSpec.makeMeasureSpec(getMeasuredWidth(), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(getMeasuredHeight(), MeasureSpec.EXACTLY));
+            mRefreshManager.layoutTargetAndRefresh(mTargetView, mRefreshView, false,
+                    getLeft(), getTop(), getRight(), getBottom());
+            updateRefreshViewIndex();
+        }
+        if (mPendingRefresh) {
+            mPendingRefresh = false;
+            mRefreshManager.setRefresh(true);
+        }
+    }
+
+    private void scheduleCreateViewOnIdle() {
+        final RefreshManager manager = mRefreshManager;
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (manager == mRefreshManager && mRefreshView == null && !mCreatingViewAsync) {
+                    if (manager.canPreloadViewAsync()) {
+                        preloadViewAsync(manager);
+                    } else {
+                        ensureRefreshView();
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    private void schedulePrewarmOnIdle() {
+        final RefreshManager manager = mRefreshManager;
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (manager == mRefreshManager && !mPrewarmed) {
+                    prewarm();
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * load resources of refresh view in background, then create the view on the main thread.
+     * posting the creation publishes whatever RM loaded to the main thread.
+     */
+    private void preloadViewAsync(final RefreshManager manager) {
+        mCreatingViewAsync = true;
+        final Context context = getContext();
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        getPreloadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                manager.onPreloadView(context);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        //RefreshManager may have been replaced meanwhile
+                        if (manager == mRefreshManager && mCreatingViewAsync) {
+                            mCreatingViewAsync = false;
+                            ensureRefreshView();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static synchronized Executor getPreloadExecutor() {
+        if (sPreloadExecutor == null) {
+            //a single background thread shared by every layout, it exits while there's nothing to load
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, PRELOAD_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull final Runnable r) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "RefreshLayout-Preload");
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            sPreloadExecutor = executor;
+        }
+        return sPreloadExecutor;
     }
 
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
+        updateScrollChangedListener();
+        registerTrimMemoryCallbacks();
         if (mRefreshManager != null) {
             mRefreshManager.onAttachedToWindow();
         }
+        updateSuspended();
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        updateScrollChangedListener();
+        stopTrackingFling();
+        unregisterTrimMemoryCallbacks();
+        setSuspended(true);
         if (mRefreshManager != null) {
             mRefreshManager.onDetachedFromWindow();
         }
     }
 
+    @TargetApi(14)
+    private void registerTrimMemoryCallbacks() {
+        if (Build.VERSION.SDK_INT < 14 || mTrimMemoryCallbacks != null) {
+            return;
+        }
+        mTrimMemoryCallbacks = new TrimMemoryCallbacks(this);
+        getContext().getApplicationContext().registerComponentCallbacks(mTrimMemoryCallbacks);
+    }
+
+    @TargetApi(14)
+    private void unregisterTrimMemoryCallbacks() {
+        if (mTrimMemoryCallbacks != null) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(mTrimMemoryCallbacks);
+            mTrimMemoryCallbacks = null;
+        }
+    }
+
+    /**
+     * release refresh view once app is in background, it's created again on next pull or refresh request
+     */
+    void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            releaseRefreshView();
+        }
+    }
+
+    /**
+     * remove refresh view and let RM drop resources created with it, only if nothing is shown or animating
+     */
+    private void releaseRefreshView() {
+        if (mRefreshView == null || mRefreshManager == null || isRefreshing() || mIsBeingDragged
+                || mInNestedScrolling || mRestoreRefreshing || mMergedRefreshPending
+                || getAnimation() != null || mRefreshView.getAnimation() != null) {
+            return;
+        }
+        removeView(mRefreshView);
+        mRefreshView = null;
+        updateRefreshViewIndex();
+        mPrewarmed = false;
+        if (mQualityGovernor != null) {
+            mQualityGovernor.reset();
+        }
+        mRefreshManager.onRefreshViewReleased();
+    }
+
     @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        ensureTargetView();
-        if (mTargetView != null) {
-            mTargetView.measure(
-                    MeasureSpec.makeMeasureSpec(getMeasuredWidth() - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY),
-                    MeasureSpec.makeMeasureSpec(getMeasuredHeight() - getPaddingTop() - getPaddingTop(), MeasureSpec.EXACTLY));
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateSuspended();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateSuspended();
+    }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        updateSuspended();
+    }
+
+    private void updateSuspended() {
+        setSuspended(!ViewCompat.isAttachedToWindow(this) || getWindowVisibility() != VISIBLE
+                || !isShown() || !hasWindowFocus());
+    }
+
+    /**
+     * pause or resume RM and LMM animations, refresh state is left untouched so nothing is fired again
+     */
+    private void setSuspended(boolean suspended) {
+        if (mSuspended == suspended) {
+            return;
         }
-        if (mRefreshManager != null) {
-            mRefreshManager.measureTargetAndRefresh(mTargetView, mRefreshView, widthMeasureSpec, heightMeasureSpec);
+        mSuspended = suspended;
+        if (suspended) {
+            stopTrackingFling();
+        } else {
+            watchFrames();
         }
+        //nothing is animated before views are created
+        if (mRefreshManager != null && mRefreshView != null) {
+            mRefreshManager.onSuspendChanged(suspended);
+        }
+        if (mLoadMoreManager != null && mFooterView != null) {
+            mLoadMoreManager.onSuspendChanged(suspended);
+        }
+    }
+
+    /**
+     * @return true if RefreshLayout is detached, invisible or its window has no focus
+     */
+    public boolean isSuspended() {
+        return mSuspended;
+    }
 
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        RefreshTrace.beginSection("RefreshLayout.onMeasure");
+        try {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            ensureTargetView();
+            if (mTargetView != null) {
+                mTargetView.measure(
+                        MeasureSpec.makeMeasureSpec(getMeasuredWidth() - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY),
+                        MeasureSpec.makeMeasureSpec(getMeasuredHeight() - getPaddingTop() - getPaddingTop(), MeasureSpec.EXACTLY));
+            }
+            if (mRefreshManager != null) {
+                mRefreshManager.measureTargetAndRefresh(mTargetView, mRefreshView, widthMeasureSpec, heightMeasureSpec);
+            }
+            if (mFooterView != null) {
+                mFooterView.measure(
+                        MeasureSpec.makeMeasureSpec(getMeasuredWidth() - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY),
+                        MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+            }
+
+            updateRefreshViewIndex();
+        } finally {
+            RefreshTrace.endSection();
+        }
+    }
+
+    private void updateRefreshViewIndex() {
         mRefreshViewIndex = -1;
+        if (mRefreshView == null) {
+            return;
+        }
         for (int i = 0; i < getChildCount(); ++i) {
             final View child = getChildAt(i);
             if (child == mRefreshView) {
@@ -367,11 +1412,117 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        if (mRefreshManager == null) {
-            Log.d(LOG_TAG, "no RefreshManager attached, skip layout");
+        RefreshTrace.beginSection("RefreshLayout.onLayout");
+        try {
+            if (mFooterView != null) {
+                mLoadMoreManager.layoutFooter(mTargetView, mFooterView, l, t, r, b);
+            }
+            if (mLoadMoreListener != null && !mLoadingMore) {
+                //a page shorter than target never scrolls, check it once laid out
+                removeCallbacks(mCheckLoadMoreRunnable);
+                post(mCheckLoadMoreRunnable);
+            }
+            if (mRefreshManager == null) {
+                Log.d(LOG_TAG, "no RefreshManager attached, skip layout");
+                return;
+            }
+            mRefreshManager.layoutTargetAndRefresh(mTargetView, mRefreshView, changed, l, t, r, b);
+            if (mRestoreRefreshing && mRefreshView != null) {
+                //RM moves views and notifies listeners, keep it out of layout pass
+                removeCallbacks(mRestoredRefreshingApplier);
+                post(mRestoredRefreshingApplier);
+            }
+            if (mPrewarmPending && mRefreshView != null) {
+                mPrewarmPending = false;
+                schedulePrewarmOnIdle();
+            }
+        } finally {
+            RefreshTrace.endSection();
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        watchFrames();
+        if (mDebugHud != null) {
+            final int offset = mRefreshView == null ? 0 : Math.max(0, mRefreshView.getBottom() - getScrollY());
+            final float triggerProgress = mRefreshManager == null || mRefreshView == null
+                    ? -1 : mRefreshManager.getTriggerProgress();
+            mDebugHud.draw(canvas, this, offset, triggerProgress);
+        }
+    }
+
+    /**
+     * @return whether something of RefreshLayout is moving and expected to be drawn every frame
+     */
+    boolean isInMotion() {
+        return mIsBeingDragged || mInNestedScrolling || isRefreshing() || getAnimation() != null
+                || (mRefreshView != null && mRefreshView.getAnimation() != null);
+    }
+
+    /**
+     * start sampling display frames if anything needs them, it stops by itself once nothing does
+     */
+    @TargetApi(16)
+    void watchFrames() {
+        if (Build.VERSION.SDK_INT < 16 || !shouldWatchFrames()) {
             return;
         }
-        mRefreshManager.layoutTargetAndRefresh(mTargetView, mRefreshView, changed, l, t, r, b);
+        if (mFrameWatcher == null) {
+            mFrameWatcher = new FrameWatcher();
+        }
+        mFrameWatcher.start();
+    }
+
+    private boolean shouldWatchFrames() {
+        return ViewCompat.isAttachedToWindow(this) && !mSuspended
+                && (mDebugHud != null || (mQualityGovernor != null && isQualityAdaptable()));
+    }
+
+    private boolean isQualityAdaptable() {
+        return mRefreshManager != null && mRefreshView != null && isInMotion();
+    }
+
+    /**
+     * frame callback posted every frame while needed, intervals are measured between real display frames,
+     * not between draws of RefreshLayout which stop while only a child is redrawn or the finger rests
+     */
+    @TargetApi(16)
+    private class FrameWatcher implements Choreographer.FrameCallback {
+        private boolean mRunning;
+        private long mLastFrameTimeNanos;
+
+        void start() {
+            if (!mRunning) {
+                mRunning = true;
+                mLastFrameTimeNanos = 0;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mLastFrameTimeNanos != 0) {
+                final float intervalMill = (frameTimeNanos - mLastFrameTimeNanos) / 1000000f;
+                if (mDebugHud != null) {
+                    mDebugHud.onFrame(intervalMill, isInMotion());
+                }
+                if (mQualityGovernor != null && isQualityAdaptable() && mQualityGovernor.onFrame(intervalMill)) {
+                    mRefreshManager.onQualityChanged(mQualityGovernor.getQuality());
+                }
+            }
+            if (!shouldWatchFrames()) {
+                mRunning = false;
+                return;
+            }
+            if (mDebugHud != null) {
+                //callback runs before traversal, the HUD is redrawn in this frame
+                invalidate();
+            }
+            mLastFrameTimeNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
     }
 
     @Override
@@ -401,76 +1552,96 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
 
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
+        RefreshTrace.beginSection("RefreshLayout.onInterceptTouchEvent");
+        try {
+            final int action = MotionEventCompat.getActionMasked(ev);
+            if (action == MotionEvent.ACTION_DOWN) {
+                //a lost or locked gesture is only given up until next one
+                setGate(GATE_GESTURE_LOST, false);
+                mGestureLocked = false;
+                setGate(GATE_GESTURE_LOCKED, false);
+                //content may move from now on, a spinner lowering window frame rate would throttle it
+                FrameRateHint.interrupt(this);
+            }
+            if (mGateMask != 0 || canTargetScrollUp() || !ensureRefreshView()) {
+                if (action == MotionEvent.ACTION_DOWN) {
+                    mFlightRecorder.record(FlightRecorder.EVENT_INTERCEPT_REJECTED, getInterceptRejectReasons(), 0);
+                }
+                // Fail fast if we're not in a state where a swipe is possible
+                return false;
+            }
 
-        if (mRefreshManager == null || !isEnabled() || canTargetScrollUp() || !acceptScroll() || mInNestedScrolling
-                || mGestureLocked) {
-            // Fail fast if we're not in a state where a swipe is possible
-            return false;
-        }
-
-        final int action = MotionEventCompat.getActionMasked(ev);
-        int pointerIndex;
+            int pointerIndex;
 
-        switch (action) {
-            case MotionEvent.ACTION_DOWN:
-                mActivePointerId = ev.getPointerId(0);
-                mIsBeingDragged = false;
+            switch (action) {
+                case MotionEvent.ACTION_DOWN:
+                    mActivePointerId = ev.getPointerId(0);
+                    mIsBeingDragged = false;
 
-                mInitialDownY = ev.getY(0);
-                mLastMotionY = mInitialDownY;
+                    mInitialDownX = ev.getX(0);
+                    mInitialDownY = ev.getY(0);
+                    mLastMotionY = mInitialDownY;
+                    startTrackingVelocity(ev);
+                    break;
 
-                mGestureLocked = false;
-                break;
+                case MotionEvent.ACTION_MOVE:
+                    if (mActivePointerId == INVALID_POINTER) {
+                        Log.e(LOG_TAG, "Got ACTION_MOVE event but don't have an active pointer id.");
+                        return false;
+                    }
 
-            case MotionEvent.ACTION_MOVE:
-                if (mActivePointerId == INVALID_POINTER) {
-                    Log.e(LOG_TAG, "Got ACTION_MOVE event but don't have an active pointer id.");
-                    return false;
-                }
+                    pointerIndex = ev.findPointerIndex(mActivePointerId);
+                    if (pointerIndex < 0) {
+                        return false;
+                    }
+                    final float y = ev.getY(pointerIndex);
+                    startDragging(ev, pointerIndex);
+                    mLastMotionY = y;
+                    break;
 
-                pointerIndex = ev.findPointerIndex(mActivePointerId);
-                if (pointerIndex < 0) {
-                    return false;
-                }
-                final float y = ev.getY(pointerIndex);
-                startDragging(y);
-                mLastMotionY = y;
-                break;
+                case MotionEventCompat.ACTION_POINTER_UP:
+                    onSecondaryPointerUp(ev);
+                    break;
 
-            case MotionEventCompat.ACTION_POINTER_UP:
-                onSecondaryPointerUp(ev);
-                break;
+                case MotionEvent.ACTION_UP:
+                case MotionEvent.ACTION_CANCEL:
+                    if (mIsBeingDragged) {
+                        mFlightRecorder.record(FlightRecorder.EVENT_DRAG_END, action == MotionEvent.ACTION_CANCEL ? 1 : 0, 0);
+                    }
+                    mIsBeingDragged = false;
+                    mActivePointerId = INVALID_POINTER;
+                    stopTrackingVelocity();
+                    break;
+            }
 
-            case MotionEvent.ACTION_UP:
-            case MotionEvent.ACTION_CANCEL:
-                mIsBeingDragged = false;
-                mActivePointerId = INVALID_POINTER;
-                break;
+            return mIsBeingDragged;
+        } finally {
+            RefreshTrace.endSection();
         }
-
-        return mIsBeingDragged;
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent ev) {
-
-        if (mRefreshManager == null || !isEnabled() || canTargetScrollUp() || !acceptScroll() || mInNestedScrolling
-                || mGestureLocked) {
+        final int action = MotionEventCompat.getActionMasked(ev);
+        if (action == MotionEvent.ACTION_DOWN) {
+            setGate(GATE_GESTURE_LOST, false);
+            mGestureLocked = false;
+            setGate(GATE_GESTURE_LOCKED, false);
+        }
+        if (mGateMask != 0 || canTargetScrollUp() || !ensureRefreshView()) {
             // Fail fast if we're not in a state where a refresh is possible
             return false;
         }
 
-        final int action = MotionEventCompat.getActionMasked(ev);
-
         switch (action) {
             case MotionEvent.ACTION_DOWN:
                 mActivePointerId = ev.getPointerId(0);
                 mIsBeingDragged = false;
 
+                mInitialDownX = ev.getX(0);
                 mInitialDownY = ev.getY(0);
                 mLastMotionY = mInitialDownY;
-
-                mGestureLocked = false;
+                startTrackingVelocity(ev);
                 break;
 
             case MotionEvent.ACTION_MOVE: {
@@ -481,11 +1652,19 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
                 }
 
                 final float y = ev.getY(pointerIndex);
-                startDragging(y);
+                startDragging(ev, pointerIndex);
 
                 if (mIsBeingDragged) {
                     final int dy = (int) (mLastMotionY - y);
-                    mRefreshManager.onConsume(dy);
+                    if (mRefreshManager.dispatchConsume(dy) != 0 && mInputLatency != null) {
+                        trackInputLatency(ev.getEventTime());
+                    }
+                    if (mTouchPredictor != null) {
+                        mTouchPredictor.addSamples(ev, pointerIndex);
+                        //finger moving down is a negative dy
+                        mRefreshManager.onPredict(-(int) mTouchPredictor.predict());
+                    }
+                    trackTriggerCrossed();
                 }
                 mLastMotionY = y;
                 break;
@@ -502,92 +1681,591 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
                     Log.e(LOG_TAG, "Got ACTION_UP event but don't have an active pointer id.");
                     return false;
                 }
+                if (mIsBeingDragged) {
+                    mFlightRecorder.record(FlightRecorder.EVENT_DRAG_END, 0, 0);
+                }
                 mIsBeingDragged = false;
                 mActivePointerId = INVALID_POINTER;
+                stopTrackingVelocity();
+
+                if (mRefreshManager != null && mNotifyMotionEnd) {
+                    if (mMetrics != null) {
+                        mMetrics.onRelease();
+                    }
+                    mRefreshManager.stopConsume();
+                }
+                break;
+            }
+
+            case MotionEvent.ACTION_CANCEL:
+                if (mIsBeingDragged) {
+                    mFlightRecorder.record(FlightRecorder.EVENT_DRAG_END, 1, 0);
+                }
+                mIsBeingDragged = false;
+                mActivePointerId = INVALID_POINTER;
+                stopTrackingVelocity();
+                return false;
+        }
+
+        return true;
+    }
+
+    private int getInterceptRejectReasons() {
+        if (mRefreshManager == null) {
+            return FlightRecorder.REJECT_NO_MANAGER;
+        }
+        final int gates = mGateMask;
+        int reasons = canTargetScrollUp() ? FlightRecorder.REJECT_TARGET_CAN_SCROLL_UP : 0;
+        if ((gates & GATE_NO_MANAGER) != 0) {
+            reasons |= FlightRecorder.REJECT_NO_MANAGER;
+        }
+        if ((gates & GATE_DISABLED) != 0) {
+            reasons |= FlightRecorder.REJECT_DISABLED;
+        }
+        if ((gates & GATE_NOT_ACCEPT_SCROLL) != 0) {
+            reasons |= FlightRecorder.REJECT_NOT_ACCEPT_SCROLL;
+        }
+        if ((gates & GATE_IN_NESTED_SCROLLING) != 0) {
+            reasons |= FlightRecorder.REJECT_IN_NESTED_SCROLLING;
+        }
+        if ((gates & GATE_GESTURE_LOCKED) != 0) {
+            reasons |= FlightRecorder.REJECT_GESTURE_LOCKED;
+        }
+        if ((gates & GATE_GESTURE_LOST) != 0) {
+            reasons |= FlightRecorder.REJECT_GESTURE_LOST;
+        }
+        return reasons;
+    }
+
+    @TargetApi(16)
+    private void trackInputLatency(long eventTime) {
+        if (Build.VERSION.SDK_INT < 16 || mPendingInputEventCount == MAX_PENDING_INPUT_EVENTS) {
+            return;
+        }
+        mPendingInputEventTimes[mPendingInputEventCount++] = eventTime;
+        if (mPendingInputEventCount == 1) {
+            if (mInputFrameCallback == null) {
+                mInputFrameCallback = new InputFrameCallback();
+            }
+            Choreographer.getInstance().postFrameCallback(mInputFrameCallback);
+        }
+    }
+
+    /**
+     * frame time of the frame that draws consumed offsets, both clocks are monotonic
+     */
+    @TargetApi(16)
+    private class InputFrameCallback implements Choreographer.FrameCallback {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            final long frameTimeMicros = frameTimeNanos / 1000;
+            if (mInputLatency != null) {
+                for (int i = 0; i < mPendingInputEventCount; ++i) {
+                    mInputLatency.record(frameTimeMicros - mPendingInputEventTimes[i] * 1000);
+                }
+            }
+            mPendingInputEventCount = 0;
+        }
+    }
+
+    private void startDragging(MotionEvent ev, int pointerIndex) {
+        if (mIsBeingDragged) {
+            return;
+        }
+        final float xDiff = Math.abs(ev.getX(pointerIndex) - mInitialDownX);
+        final float yDiff = ev.getY(pointerIndex) - mInitialDownY;
+        if (mVelocityTracker != null) {
+            mVelocityTracker.addMovement(ev);
+        }
+        if (xDiff <= mTouchSlop && Math.abs(yDiff) <= mTouchSlop) {
+            //direction is undecided in touch slop
+            return;
+        }
+        final boolean claimed = isDraggingDown(xDiff, yDiff, ev.getPointerId(pointerIndex));
+        stopTrackingVelocity();
+        if (!claimed) {
+            //lost, leave the rest of gesture to target or parents without evaluating it again
+            setGate(GATE_GESTURE_LOST, true);
+            mFlightRecorder.record(FlightRecorder.EVENT_DRAG_REJECTED, (int) xDiff, (int) yDiff);
+            return;
+        }
+        //keep parents such as ViewPager from stealing a claimed gesture
+        final ViewParent parent = getParent();
+        if (parent != null) {
+            parent.requestDisallowInterceptTouchEvent(true);
+        }
+        mLastMotionY = mInitialDownY + mTouchSlop;
+        if (mTouchPredictor != null) {
+            mTouchPredictor.reset();
+        }
+        mIsBeingDragged = true;
+        mNotifyMotionEnd = true;
+        mFlightRecorder.record(FlightRecorder.EVENT_DRAG_START);
+        if (mMetrics != null) {
+            mMetrics.onDragStart();
+        }
+        if (mRefreshManager != null) {
+            mRefreshManager.startConsume();
+        }
+    }
+
+    /**
+     * decide direction of a drag leaving touch slop, by its offset and by its velocity if offset is ambiguous
+     */
+    private boolean isDraggingDown(float xDiff, float yDiff, int pointerId) {
+        if (yDiff <= 0) {
+            return false;
+        }
+        if (yDiff > xDiff * DRAG_DIRECTION_RATIO) {
+            return true;
+        }
+        if (yDiff <= xDiff || mVelocityTracker == null) {
+            return false;
+        }
+        mVelocityTracker.computeCurrentVelocity(1000);
+        return mVelocityTracker.getYVelocity(pointerId)
+                > Math.abs(mVelocityTracker.getXVelocity(pointerId)) * DRAG_DIRECTION_RATIO;
+    }
+
+    private void startTrackingVelocity(MotionEvent ev) {
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        } else {
+            mVelocityTracker.clear();
+        }
+        mVelocityTracker.addMovement(ev);
+    }
+
+    private void stopTrackingVelocity() {
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    private void onSecondaryPointerUp(MotionEvent ev) {
+        final int pointerIndex = MotionEventCompat.getActionIndex(ev);
+        final int pointerId = ev.getPointerId(pointerIndex);
+        if (pointerId == mActivePointerId) {
+            // This was our active pointer going up. Choose a new
+            // active pointer and adjust accordingly.
+            final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
+            mActivePointerId = ev.getPointerId(newPointerIndex);
+            if (mTouchPredictor != null) {
+                mTouchPredictor.reset();
+            }
+        }
+    }
+
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        if ((android.os.Build.VERSION.SDK_INT < 21 && mTargetView instanceof AbsListView)
+                || (mTargetView != null && !ViewCompat.isNestedScrollingEnabled(mTargetView))) {
+            // Nope, just to keep motion event passing.
+        } else {
+            super.requestDisallowInterceptTouchEvent(disallowIntercept);
+        }
+    }
+
+    /**
+     * change refresh state, could be called from any thread.
+     * it may not begin refreshing immediately as RM may need some time to prepare.
+     * called off the main thread, the state is applied on next frame, and only the latest one
+     * if it's called several times before that.
+     * refreshing state restored from saved instance state doesn't notify {@link OnRefreshListener},
+     * it must be finished with false like any other, see {@link OnRefreshRestoredListener}.
+     *
+     * @param refreshing whether a refresh process should be began or end
+     */
+    public void setRefreshing(boolean refreshing) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            //supersede any state requested off the main thread
+            mRefreshRequest.set(REFRESH_REQUEST_NONE);
+            applyRefreshing(refreshing, true);
+            return;
+        }
+        final int request = refreshing ? REFRESH_REQUEST_START : REFRESH_REQUEST_FINISH;
+        if (mRefreshRequest.getAndSet(request) == REFRESH_REQUEST_NONE) {
+            mMainHandler.post(mScheduleRefreshRequest);
+        }
+    }
+
+    /**
+     * @param checkPolicy whether a new refresh should follow refresh policy
+     */
+    private void applyRefreshing(boolean refreshing, boolean checkPolicy) {
+        if (!refreshing) {
+            mRestoreRefreshing = false;
+        }
+        if (!refreshing && mCoordinator != null) {
+            mCoordinator.onRefreshFinished(this);
+        }
+        if (mRefreshManager != null) {
+            if (!ensureRefreshView()) {
+                //refresh view is being created off the main thread, apply once it's added
+                mPendingRefresh = refreshing;
+                return;
+            }
+            if (refreshing && isRefreshing()) {
+                onTriggerWhileRefreshing();
+                return;
+            }
+            if (refreshing && checkPolicy && shouldSuppressRefresh()) {
+                return;
+            }
+            if (mMetrics != null && refreshing != isRefreshing()) {
+                if (refreshing) {
+                    mMetrics.onRefreshRequested();
+                } else {
+                    mMetrics.onFinishRequested();
+                }
+            }
+            mRefreshManager.setRefresh(refreshing);
+        }
+    }
+
+    /**
+     * apply refresh state shared by {@link RefreshCoordinator}, bypass refresh policy
+     */
+    void setRefreshingFromCoordinator(boolean refreshing) {
+        applyRefreshing(refreshing, false);
+    }
+
+    /**
+     * @return wall clock time in milliseconds the last refresh finished, 0 if none finished yet
+     */
+    public long getLastRefreshTime() {
+        return mLastRefreshWallTime;
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        final SavedState ss = new SavedState(super.onSaveInstanceState());
+        if (mRestoreRefreshing) {
+            //saved again before the restored state was applied
+            ss.refreshing = true;
+            ss.offset = mRestoreOffset;
+        } else {
+            ss.refreshing = isRefreshing();
+            ss.offset = ss.refreshing && mRefreshView != null ? mRefreshManager.getRefreshOffset() : 0;
+        }
+        ss.lastRefreshTime = mLastRefreshWallTime;
+        ss.lastRefreshElapsed = mLastRefreshFinishedTime;
+        return ss;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        final SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
+        if (ss.lastRefreshTime != 0 && mLastRefreshWallTime == 0) {
+            mLastRefreshWallTime = ss.lastRefreshTime;
+            //elapsed realtime restarts on reboot, trust it only if both clocks agree on the time passed
+            final long elapsed = SystemClock.elapsedRealtime() - ss.lastRefreshElapsed;
+            final long wallElapsed = System.currentTimeMillis() - ss.lastRefreshTime;
+            if (ss.lastRefreshElapsed != 0 && elapsed >= 0 && Math.abs(elapsed - wallElapsed) < MAX_CLOCK_SKEW) {
+                mLastRefreshFinishedTime = ss.lastRefreshElapsed;
+            }
+        }
+        if (ss.refreshing && !isRefreshing() && mRefreshManager != null) {
+            mRestoreRefreshing = true;
+            mRestoreOffset = ss.offset;
+            if (ensureRefreshView()) {
+                requestLayout();
+            }
+        }
+    }
+
+    /**
+     * could be called from any thread
+     *
+     * @return whether RM is refreshing, state requested off the main thread is not included until applied
+     */
+    public boolean isRefreshing() {
+        final RefreshManager refreshManager = mRefreshManager;
+        return refreshManager != null && refreshManager.mIsRefreshing;
+    }
+
+    /**
+     * attach a RefreshManager to this widget
+     *
+     * @param refreshManager refresh style controller
+     */
+    public void setRefreshManager(RefreshManager refreshManager) {
+        if (isRefreshing() || mIsBeingDragged || mInNestedScrolling) {
+            throw new IllegalStateException("cannot change RefreshManager during refreshing or scrolling");
+        }
+        if (mRefreshManager != refreshManager && refreshManager != null) {
+            mRefreshManager = refreshManager;
+            mRefreshManager.setRefreshLayout(this);
+            if (mQualityGovernor != null) {
+                mQualityGovernor.reset();
+            }
+            setGate(GATE_NO_MANAGER, false);
+            invalidateAcceptScroll();
+            if (mRefreshView != null) {
+                //need remove old refresh view if there's one
+                removeView(mRefreshView);
+                mRefreshView = null;
+            }
+            mCreatingViewAsync = false;
+            mPendingRefresh = false;
+            mPrewarmPending = false;
+            mPrewarmed = false;
+            if (mViewCreationMode == CREATE_VIEW_IMMEDIATELY) {
+                ensureRefreshView();
+            } else if (mViewCreationMode == CREATE_VIEW_ON_IDLE) {
+                scheduleCreateViewOnIdle();
+            }
+            if (mPrewarmOnIdle) {
+                schedulePrewarmOnIdle();
+            }
+        }
+    }
+
+    /**
+     * build refresh view of attached RefreshManager and render each of its states once offscreen,
+     * so inflation, bitmap decoding, paint setup and first time drawing don't happen in the first pull.
+     * in a hardware accelerated window states are rendered into a temporary hardware layer,
+     * which also records display lists and uploads textures and glyphs to the renderer.
+     * otherwise they are drawn into a software bitmap, which only warms inflation, decoding and measuring.
+     * if refresh view can't be drawn yet, it will be prewarmed once main thread is idle after next layout.
+     */
+    public void prewarm() {
+        if (mRefreshManager == null || mPrewarmed) {
+            return;
+        }
+        if (isRefreshing() || mIsBeingDragged || mInNestedScrolling || !ensureRefreshView()
+                || mRefreshView.getWidth() == 0 || mRefreshView.getHeight() == 0) {
+            mPrewarmPending = true;
+            return;
+        }
+        mPrewarmPending = false;
+        mPrewarmed = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB && isHardwareAccelerated()) {
+            prewarmHardware();
+            return;
+        }
+        final Bitmap bitmap = Bitmap.createBitmap(mRefreshView.getWidth(), mRefreshView.getHeight(),
+                Bitmap.Config.ARGB_8888);
+        mPrewarmCanvas = new Canvas(bitmap);
+        mRefreshManager.onPrewarm(mRefreshView);
+        mPrewarmCanvas = null;
+        bitmap.recycle();
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private void prewarmHardware() {
+        final int layerType = mRefreshView.getLayerType();
+        mRefreshView.setLayerType(LAYER_TYPE_HARDWARE, null);
+        mRefreshManager.onPrewarm(mRefreshView);
+        mRefreshView.setLayerType(layerType, null);
+    }
+
+    /**
+     * render current state of refresh view once, see {@link #prewarm()}
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    void drawPrewarm(View refresh) {
+        if (mPrewarmCanvas != null) {
+            refresh.draw(mPrewarmCanvas);
+        } else {
+            //renders into the hardware layer right away instead of waiting for next frame
+            refresh.invalidate();
+            refresh.buildLayer();
+        }
+    }
+
+    /**
+     * whether to {@link #prewarm()} automatically once main thread is idle,
+     * should be called before {@link #setRefreshManager(RefreshManager)} to take effect.
+     */
+    public void setPrewarmOnIdle(boolean prewarmOnIdle) {
+        mPrewarmOnIdle = prewarmOnIdle;
+    }
+
+    /**
+     * set when refresh view of RefreshManager should be created,
+     * should be called before {@link #setRefreshManager(RefreshManager)} to take effect.
+     * deferring creation keeps it out of Activity startup, most sessions never pull to refresh.
+     *
+     * @param mode one of {@link #CREATE_VIEW_IMMEDIATELY}, {@link #CREATE_VIEW_ON_DRAG}, {@link #CREATE_VIEW_ON_IDLE}
+     */
+    public void setViewCreationMode(@ViewCreationMode int mode) {
+        mViewCreationMode = mode;
+    }
+
+    /**
+     * enable recording latency of each refresh stage,
+     * recorded latencies are aggregated into {@link #getMetrics()} and {@link RefreshMetrics#global()}
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (!enabled) {
+            mMetrics = null;
+        } else if (mMetrics == null) {
+            mMetrics = new RefreshMetrics();
+        }
+    }
+
+    /**
+     * @return latency metrics of this layout, null if not enabled
+     */
+    public RefreshMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * enable measuring how long a drag event waits until the frame drawing its offset,
+     * only drag handled by RefreshLayout itself is measured, requires api 16.
+     */
+    public void setInputLatencyTrackingEnabled(boolean enabled) {
+        if (!enabled) {
+            mInputLatency = null;
+        } else if (mInputLatency == null) {
+            mInputLatency = new RollingLatency();
+        }
+    }
 
-                if (mRefreshManager != null && mNotifyMotionEnd) {
-                    mRefreshManager.stopConsume();
-                }
-                break;
-            }
+    /**
+     * @return rolling input latency, null if not enabled
+     */
+    public RollingLatency getInputLatency() {
+        return mInputLatency;
+    }
 
-            case MotionEvent.ACTION_CANCEL:
-                mIsBeingDragged = false;
-                mActivePointerId = INVALID_POINTER;
-                return false;
+    /**
+     * enable rendering drag handled by RefreshLayout itself ahead, where finger is expected to be when displayed.
+     * consumed distance is not affected, see {@link RefreshManager#onPredict(int)}.
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        if (!enabled) {
+            mTouchPredictor = null;
+        } else if (mTouchPredictor == null) {
+            mTouchPredictor = new TouchPredictor(getResources().getDisplayMetrics().density,
+                    FrameTrackingAnimation.getFrameIntervalMill(getContext()));
         }
+    }
 
-        return true;
+    /**
+     * @return recorder of recent state transitions, could be dumped from any thread
+     */
+    public FlightRecorder getFlightRecorder() {
+        return mFlightRecorder;
     }
 
-    private void startDragging(float y) {
-        final float yDiff = y - mInitialDownY;
-        if (yDiff > mTouchSlop && !mIsBeingDragged) {
-            mLastMotionY = mInitialDownY + mTouchSlop;
-            mIsBeingDragged = true;
-            mNotifyMotionEnd = true;
-            if (mRefreshManager != null) {
-                mRefreshManager.startConsume();
+    /**
+     * show live performance numbers over content: onConsume calls per second, header offset,
+     * trigger progress, last frame time, dropped frames and refresh duration.
+     * it's a no-op unless the app is debuggable, so it never shows in release builds.
+     */
+    public void setDebugHudEnabled(boolean enabled) {
+        final boolean debuggable = (getContext().getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        if (enabled && debuggable) {
+            if (mDebugHud == null) {
+                mDebugHud = new DebugHud(getContext());
             }
+        } else {
+            mDebugHud = null;
         }
+        watchFrames();
+        invalidate();
     }
 
-    private void onSecondaryPointerUp(MotionEvent ev) {
-        final int pointerIndex = MotionEventCompat.getActionIndex(ev);
-        final int pointerId = ev.getPointerId(pointerIndex);
-        if (pointerId == mActivePointerId) {
-            // This was our active pointer going up. Choose a new
-            // active pointer and adjust accordingly.
-            final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
-            mActivePointerId = ev.getPointerId(newPointerIndex);
+    /**
+     * lower rendering quality of RefreshManager while frames run over budget during a pull or animation,
+     * and raise it back once frames recover, see {@link RefreshManager#onQualityChanged(int)}.
+     * display frames are sampled from Choreographer, so it requires api 16.
+     */
+    public void setAdaptiveQualityEnabled(boolean enabled) {
+        if (enabled) {
+            if (mQualityGovernor == null) {
+                mQualityGovernor = new QualityGovernor(FrameTrackingAnimation.getFrameIntervalMill(getContext()));
+            }
+            watchFrames();
+        } else if (mQualityGovernor != null) {
+            final boolean downgraded = mQualityGovernor.getQuality() != QUALITY_HIGH;
+            mQualityGovernor = null;
+            if (downgraded && mRefreshManager != null && mRefreshView != null) {
+                mRefreshManager.onQualityChanged(QUALITY_HIGH);
+            }
         }
     }
 
-    @Override
-    public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
-        if ((android.os.Build.VERSION.SDK_INT < 21 && mTargetView instanceof AbsListView)
-                || (mTargetView != null && !ViewCompat.isNestedScrollingEnabled(mTargetView))) {
-            // Nope, just to keep motion event passing.
-        } else {
-            super.requestDisallowInterceptTouchEvent(disallowIntercept);
-        }
+    /**
+     * @return current rendering quality of RefreshManager
+     */
+    @RenderQuality
+    public int getRenderQuality() {
+        return mQualityGovernor == null ? QUALITY_HIGH : mQualityGovernor.getQuality();
     }
 
     /**
-     * change refresh state.
-     * it may not begin refreshing immediately as RM may need some time to prepare
+     * time every {@link OnRefreshListener} dispatch, and report the ones exceed budget.
+     * heavy work in {@link OnRefreshListener#onRefreshing()} freezes the spinner just started.
      *
-     * @param refreshing whether a refresh process should be began or end
+     * @param budgetMillis main thread budget of a single dispatch
+     * @param listener     null to stop timing
      */
-    public void setRefreshing(boolean refreshing) {
-        if (mRefreshManager != null) {
-            mRefreshManager.setRefresh(refreshing);
-        }
+    public void setOnRefreshViolationListener(long budgetMillis, OnRefreshViolationListener listener) {
+        mRefreshListenerBudget = budgetMillis;
+        mRefreshViolationListener = listener;
     }
 
-    public boolean isRefreshing() {
-        return mRefreshManager != null && mRefreshManager.mIsRefreshing;
+    /**
+     * whether to notify {@link OnRefreshListener} after the next frame has been drawn instead of immediately,
+     * so first frames of the refreshing spinner always render before listener runs.
+     * listener is skipped if refresh has finished meanwhile.
+     */
+    public void setDispatchRefreshAfterFrame(boolean dispatchAfterFrame) {
+        mDispatchRefreshAfterFrame = dispatchAfterFrame;
     }
 
     /**
-     * attach a RefreshManager to this widget
+     * set minimum interval between two fired refreshes.
+     * a refresh triggered by gesture within it bounces back without firing,
+     * {@link #setRefreshing(boolean)} with true within it is ignored.
      *
-     * @param refreshManager refresh style controller
+     * @param intervalMillis 0 to disable
      */
-    public void setRefreshManager(RefreshManager refreshManager) {
-        if (isRefreshing() || mIsBeingDragged || mInNestedScrolling) {
-            throw new IllegalStateException("cannot change RefreshManager during refreshing or scrolling");
+    public void setMinRefreshInterval(long intervalMillis) {
+        mMinRefreshInterval = intervalMillis;
+    }
+
+    /**
+     * set how long a finished refresh is considered recent.
+     * a refresh triggered by gesture within it bounces back without firing,
+     * {@link #setRefreshing(boolean)} with true within it is ignored.
+     *
+     * @param ttlMillis 0 to disable
+     */
+    public void setRecentRefreshTtl(long ttlMillis) {
+        mRecentRefreshTtl = ttlMillis;
+    }
+
+    /**
+     * set how a refresh triggered while refreshing is handled
+     *
+     * @param mode {@link #IN_FLIGHT_DROP} or {@link #IN_FLIGHT_MERGE}
+     */
+    public void setInFlightTriggerMode(@InFlightTriggerMode int mode) {
+        mInFlightTriggerMode = mode;
+        if (mode != IN_FLIGHT_MERGE) {
+            mMergedRefreshPending = false;
         }
-        if (mRefreshManager != refreshManager && refreshManager != null) {
-            mRefreshManager = refreshManager;
-            mRefreshManager.setRefreshLayout(this);
-            if (mRefreshView != null) {
-                //need remove old refresh view if there's one
-                removeView(mRefreshView);
-            }
-            mRefreshView = mRefreshManager.onCreateView(this);
-            addView(mRefreshView);
+    }
 
+    /**
+     * set whether momentum of a nested fling reaching the top of target overscrolls header briefly,
+     * disabled by default. it never triggers a refresh.
+     */
+    public void setFlingAbsorbEnabled(boolean enabled) {
+        mFlingAbsorbEnabled = enabled;
+        if (!enabled) {
+            stopTrackingFling();
         }
     }
 
@@ -598,6 +2276,13 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
         mRefreshListener = listener;
     }
 
+    /**
+     * set listener to be notified when refreshing state is restored without notifying {@link OnRefreshListener}
+     */
+    public void setOnRefreshRestoredListener(OnRefreshRestoredListener listener) {
+        mRefreshRestoredListener = listener;
+    }
+
     /**
      * set TargetScrollUpChecker.
      * if RefreshLayout direct child is not scrollable view,
@@ -612,6 +2297,189 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
         boolean canTargetScrollUp();
     }
 
+    /**
+     * set LoadMoreManager to show footer while loading more, null to remove footer.
+     * by default footer is laid out over the bottom of target and covers its last items while shown,
+     * give target a bottom padding of footer height with clipToPadding false to keep them visible,
+     * or override {@link LoadMoreManager#layoutFooter(View, View, int, int, int, int)}.
+     */
+    public void setLoadMoreManager(LoadMoreManager loadMoreManager) {
+        if (mLoadMoreManager == loadMoreManager) {
+            return;
+        }
+        if (mFooterView != null) {
+            if (mLoadingMore) {
+                //stop footer animation and whatever it holds, eg. a frame rate request
+                mLoadMoreManager.onLoadingMoreChanged(mFooterView, false);
+            }
+            removeView(mFooterView);
+            mFooterView = null;
+        }
+        mLoadMoreManager = loadMoreManager;
+        if (loadMoreManager != null) {
+            loadMoreManager.setRefreshLayout(this);
+            mFooterView = loadMoreManager.onCreateView(this);
+            addView(mFooterView);
+            loadMoreManager.onLoadingMoreChanged(mFooterView, mLoadingMore);
+        }
+    }
+
+    /**
+     * set listener to be notified when target scrolls within prefetch distance to its end,
+     * it won't be notified again until {@link #setLoadingMore(boolean)} is called with false.
+     * distance is checked again after layout and once loading finishes, so a page shorter than target keeps
+     * loading until target is filled. a load which adds nothing to target is only retried by a scroll,
+     * still set it to null when there's nothing more to load.
+     */
+    public void setOnLoadMoreListener(OnLoadMoreListener listener) {
+        mLoadMoreListener = listener;
+        updateScrollChangedListener();
+    }
+
+    /**
+     * set how close to the end target should be to load more, default is 0 pixel, load at the end.
+     * without a {@link TargetDistanceToEndListener}, items are only counted for AbsListView,
+     * pixels for AbsListView and ScrollingView, eg. RecyclerView; other targets load more at the end.
+     *
+     * @param distance distance to the end of target
+     * @param unit     {@link #PREFETCH_PIXELS} or {@link #PREFETCH_ITEMS}
+     */
+    public void setLoadMorePrefetchDistance(int distance, @PrefetchUnit int unit) {
+        mPrefetchDistance = distance;
+        mPrefetchUnit = unit;
+    }
+
+    /**
+     * set TargetDistanceToEndChecker, for targets RefreshLayout can't measure distance to the end of
+     */
+    public void setTargetDistanceToEndChecker(TargetDistanceToEndListener checker) {
+        mTargetDistanceToEndChecker = checker;
+    }
+
+    /**
+     * should be called on the main thread, with false once a page has been loaded
+     */
+    public void setLoadingMore(boolean loadingMore) {
+        setLoadingMoreInternal(loadingMore);
+    }
+
+    public boolean isLoadingMore() {
+        return mLoadingMore;
+    }
+
+    public interface TargetDistanceToEndListener {
+        /**
+         * @param unit {@link #PREFETCH_PIXELS} or {@link #PREFETCH_ITEMS}
+         * @return distance from visible content to the end of target
+         */
+        int getTargetDistanceToEnd(@PrefetchUnit int unit);
+    }
+
+    @TargetApi(14)
+    private static class TrimMemoryCallbacks implements ComponentCallbacks2 {
+        private final RefreshLayout mLayout;
+
+        TrimMemoryCallbacks(RefreshLayout layout) {
+            mLayout = layout;
+        }
+
+        @Override
+        public void onTrimMemory(int level) {
+            mLayout.onTrimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            mLayout.onTrimMemory(TRIM_MEMORY_COMPLETE);
+        }
+    }
+
+    static class SavedState extends BaseSavedState {
+        boolean refreshing;
+        int offset;
+        long lastRefreshTime;
+        long lastRefreshElapsed;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        SavedState(Parcel source) {
+            super(source);
+            refreshing = source.readInt() != 0;
+            offset = source.readInt();
+            lastRefreshTime = source.readLong();
+            lastRefreshElapsed = source.readLong();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(refreshing ? 1 : 0);
+            out.writeInt(offset);
+            out.writeLong(lastRefreshTime);
+            out.writeLong(lastRefreshElapsed);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel source) {
+                return new SavedState(source);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * show footer of RefreshLayout while loading more
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static abstract class LoadMoreManager {
+
+        protected RefreshLayout mRefreshLayout;
+
+        void setRefreshLayout(RefreshLayout refreshLayout) {
+            mRefreshLayout = refreshLayout;
+        }
+
+        /**
+         * called to get footer view
+         *
+         * @param container ViewGroup this footer view will be added
+         * @return footer view
+         */
+        protected abstract View onCreateView(ViewGroup container);
+
+        /**
+         * loading more started or finished, footer should show or hide its loading state
+         */
+        protected abstract void onLoadingMoreChanged(View footer, boolean loading);
+
+        /**
+         * RefreshLayout is suspended or resumed, see {@link RefreshLayout#isSuspended()}.
+         * footer should pause its animations while suspended and resume them from the same phase.
+         */
+        protected void onSuspendChanged(boolean suspended) {
+        }
+
+        /**
+         * layout footer, by default over the bottom of target, no space is reserved for it
+         */
+        public void layoutFooter(View target, View footer, int l, int t, int r, int b) {
+            final int left = mRefreshLayout.getPaddingLeft();
+            final int bottom = b - t - mRefreshLayout.getPaddingBottom();
+            footer.layout(left, bottom - footer.getMeasuredHeight(), left + footer.getMeasuredWidth(), bottom);
+        }
+    }
+
 
     @SuppressWarnings("WeakerAccess")
     public static abstract class RefreshManager {
@@ -621,7 +2489,7 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
         /**
          * is RM current in refreshing state,prepare or setting state included
          */
-        protected boolean mIsRefreshing = false;
+        protected volatile boolean mIsRefreshing = false;
 
         @DrawingOrder
         public int getViewDrawingOrder() {
@@ -639,6 +2507,26 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
          */
         protected abstract View onCreateView(ViewGroup container);
 
+        /**
+         * whether {@link #onPreloadView(Context)} should be called off the main thread before
+         * {@link #onCreateView(ViewGroup)}, only used with {@link #CREATE_VIEW_ON_IDLE}.
+         *
+         * @return true if RM has resources worth loading in background
+         */
+        protected boolean canPreloadViewAsync() {
+            return false;
+        }
+
+        /**
+         * load resources of refresh view on a background thread, eg. decode bitmaps.
+         * it must not create or touch any View, Drawable callback or Animation, they belong to the main thread.
+         * {@link #onCreateView(ViewGroup)} is called on the main thread afterwards and sees what has been loaded.
+         *
+         * @param context context of RefreshLayout, only to reach resources
+         */
+        protected void onPreloadView(Context context) {
+        }
+
         /**
          * is current RM state could trigger a refresh event,
          * if this return true then {@link #prepare(boolean, boolean)} will be called,
@@ -666,6 +2554,23 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
          */
         protected abstract void finish(boolean isScrolling, boolean changed);
 
+        /**
+         * render every state of refresh view once offscreen by calling {@link #drawPrewarm(View)} for each.
+         * RM should leave refresh view in the state it was before.
+         *
+         * @param refresh refresh view, has been measured and laid out
+         */
+        protected void onPrewarm(View refresh) {
+            drawPrewarm(refresh);
+        }
+
+        /**
+         * render current state of refresh view once offscreen, only valid inside {@link #onPrewarm(View)}
+         */
+        protected final void drawPrewarm(View refresh) {
+            mRefreshLayout.drawPrewarm(refresh);
+        }
+
         /**
          * RefreshLayout attached to Window
          */
@@ -678,6 +2583,14 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
         protected void onDetachedFromWindow() {
         }
 
+        /**
+         * RefreshLayout is detached, invisible or lost window focus, or recovered from all of them.
+         * RM should pause its animations and frame callbacks while suspended and resume them
+         * from the same phase, without changing refresh state.
+         */
+        protected void onSuspendChanged(boolean suspended) {
+        }
+
         /**
          * measure target and refresh view.
          * note, target has been measured with match_parent flag before this be called,
@@ -687,6 +2600,10 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
          * @param heightMeasureSpec parent measureSpec
          */
         public void measureTargetAndRefresh(View target, View refresh, int widthMeasureSpec, int heightMeasureSpec) {
+            if (refresh == null) {
+                //refresh view has not been created yet
+                return;
+            }
             refresh.measure(View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED),
                     View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
         }
@@ -694,7 +2611,9 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
         public abstract void layoutTargetAndRefresh(View target, View refresh, boolean changed, int l, int t, int r, int b);
 
         /**
-         * whether RefreshLayout should handle motion event or accept nested scroll
+         * whether RefreshLayout should handle motion event or accept nested scroll.
+         * result is cached, RM should call {@link #invalidateAcceptScroll()} when it may change,
+         * refresh state changes are handled already.
          *
          * @return true if should
          */
@@ -702,18 +2621,66 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
             return true;
         }
 
+        /**
+         * notify RefreshLayout that {@link #acceptScroll()} may return a different value
+         */
+        protected final void invalidateAcceptScroll() {
+            if (mRefreshLayout != null) {
+                mRefreshLayout.invalidateAcceptScroll();
+            }
+        }
+
         /**
          * start consume produced motion y
          */
         protected void startConsume() {
         }
 
+        /**
+         * whether RM has consumed motion that a positive dy could give back.
+         * RefreshLayout skips {@link #onConsume(int)} for positive dy while this returns false.
+         *
+         * @return true if could
+         */
+        protected boolean hasConsumed() {
+            return true;
+        }
+
         /***
          * @param dy distance in pixel of produced motion y
          * @return distance in pixel this RML consumed
          */
         protected abstract int onConsume(int dy);
 
+        /**
+         * a nested fling of target reached its top with remaining velocity.
+         * RM may overscroll and settle back its view, but must not change refresh state.
+         * only called while not refreshing and no gesture is in progress.
+         *
+         * @param velocity remaining velocity in pixels per second, always positive
+         */
+        protected void onAbsorbFling(int velocity) {
+        }
+
+        /**
+         * render ahead of consumed motion while dragging, only called if touch prediction is enabled.
+         * the distance must not be consumed, next {@link #onConsume(int)} continues from consumed distance.
+         *
+         * @param dy distance in pixel finger is expected to move further by the time this frame is displayed,
+         *           same direction as in {@link #onConsume(int)}
+         */
+        protected void onPredict(int dy) {
+        }
+
+        /**
+         * rendering quality changed because of frame pressure, only called if adaptive quality is enabled.
+         * RM should drop or restore details that don't carry refresh state.
+         *
+         * @param quality one of {@link #QUALITY_HIGH}, {@link #QUALITY_MEDIUM}, {@link #QUALITY_LOW}
+         */
+        protected void onQualityChanged(@RenderQuality int quality) {
+        }
+
         /**
          * stop consume produced motion y
          */
@@ -724,16 +2691,60 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
                 boolean canTrigger = canMotionTriggerRefresh();
                 if (mIsRefreshing) {
                     if (canTrigger) {
-                        prepare(true, false);
+                        mRefreshLayout.onTriggerWhileRefreshing();
+                        dispatchPrepare(true, false);
                     } else {
-                        finish(true, false);
+                        dispatchFinish(true, false);
                     }
+                } else if (canTrigger && mRefreshLayout.shouldSuppressRefresh()) {
+                    //refreshed recently, bounce back and reset hint without firing
+                    dispatchFinish(true, true);
                 } else {
                     setRefreshInternal(canTrigger, true, false);
                 }
             }
         }
 
+        /**
+         * refresh view has been removed to save memory while app is in background.
+         * RM should drop every reference to it and to resources created with it,
+         * {@link #onCreateView(ViewGroup)} is called again on next pull or refresh request.
+         */
+        protected void onRefreshViewReleased() {
+        }
+
+        /**
+         * @return current offset of refresh view, saved with instance state of RefreshLayout while refreshing
+         */
+        protected int getRefreshOffset() {
+            return 0;
+        }
+
+        /**
+         * refreshing state is restored after RefreshLayout was recreated, refresh view has been laid out.
+         * RM should show its refreshing position instantly, without animation, and must not fire a refresh.
+         * by default RM prepares as if refreshing was requested again without state change.
+         * RefreshLayout notifies {@link OnRefreshRestoredListener} afterwards, the app finishes the refresh.
+         *
+         * @param offset offset returned by {@link #getRefreshOffset()} when state was saved
+         */
+        protected void onRestoreRefreshing(int offset) {
+            prepare(false, false);
+        }
+
+        void restoreRefreshing(int offset) {
+            mRefreshLayout.mFlightRecorder.record(FlightRecorder.EVENT_REFRESH_STATE, 1,
+                    FlightRecorder.STATE_CHANGED | FlightRecorder.STATE_RESTORED);
+            mIsRefreshing = true;
+            invalidateAcceptScroll();
+            RefreshTrace.beginSection("RefreshManager.onRestoreRefreshing");
+            try {
+                onRestoreRefreshing(offset);
+            } finally {
+                RefreshTrace.endSection();
+            }
+        }
+
         void setRefresh(boolean refresh) {
             if (mIsRefreshing != refresh) {
                 setRefreshInternal(refresh, false, false);
@@ -754,11 +2765,48 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
                 mRefreshLayout.abortScrolling();
             }
             boolean changed = mIsRefreshing ^ refresh;
+            mRefreshLayout.mFlightRecorder.record(FlightRecorder.EVENT_REFRESH_STATE, refresh ? 1 : 0,
+                    (isScrolling ? FlightRecorder.STATE_SCROLLING : 0)
+                            | (abortScrolling ? FlightRecorder.STATE_ABORT_SCROLLING : 0)
+                            | (changed ? FlightRecorder.STATE_CHANGED : 0));
             mIsRefreshing = refresh;
+            invalidateAcceptScroll();
+            mRefreshLayout.watchFrames();
             if (mIsRefreshing) {
-                prepare(isScrolling, changed);
+                dispatchPrepare(isScrolling, changed);
             } else {
+                dispatchFinish(isScrolling, changed);
+            }
+        }
+
+        final int dispatchConsume(int dy) {
+            if (mRefreshLayout.mDebugHud != null) {
+                mRefreshLayout.mDebugHud.onConsume();
+            }
+            mRefreshLayout.watchFrames();
+            RefreshTrace.beginSection("RefreshManager.onConsume");
+            try {
+                return onConsume(dy);
+            } finally {
+                RefreshTrace.endSection();
+            }
+        }
+
+        private void dispatchPrepare(boolean isScrolling, boolean changed) {
+            RefreshTrace.beginSection("RefreshManager.prepare");
+            try {
+                prepare(isScrolling, changed);
+            } finally {
+                RefreshTrace.endSection();
+            }
+        }
+
+        private void dispatchFinish(boolean isScrolling, boolean changed) {
+            RefreshTrace.beginSection("RefreshManager.finish");
+            try {
                 finish(isScrolling, changed);
+            } finally {
+                RefreshTrace.endSection();
             }
         }
 
@@ -766,6 +2814,32 @@ public class RefreshLayout extends ViewGroup implements NestedScrollingChild, Ne
             mRefreshLayout.fireRefreshEvent();
         }
 
+        /**
+         * record start or end of a RM animation into RefreshLayout's {@link FlightRecorder}
+         *
+         * @param animation one of {@link FlightRecorder#ANIMATION_PREPARE}, {@link FlightRecorder#ANIMATION_FINISH}
+         */
+        protected final void recordAnimation(int animation, boolean start) {
+            mRefreshLayout.mFlightRecorder.record(start ? FlightRecorder.EVENT_ANIMATION_START
+                    : FlightRecorder.EVENT_ANIMATION_END, animation, 0);
+        }
+
+        /**
+         * progress of current motion toward trigger distance, only used for debugging
+         *
+         * @return 1 or more if releasing now would trigger a refresh, negative if unknown
+         */
+        protected float getTriggerProgress() {
+            return canMotionTriggerRefresh() ? 1f : -1f;
+        }
+
+        /**
+         * should be called when RM has been reset to its original state after finishing
+         */
+        protected final void notifyReset() {
+            mRefreshLayout.onRefreshReset();
+        }
+
     }
 }
 
@@ -0,0 +1,137 @@
+package com.laxus.android.refreshlayout;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Latency of each refresh stage, aggregated into {@link LatencyHistogram}s.
+ * every RefreshLayout with metrics enabled owns one, and all of them also record into {@link #global()}.
+ * stage timestamps are written by RefreshLayout on the main thread,
+ * snapshots could be taken from any thread.
+ */
+public class RefreshMetrics {
+
+    /**
+     * from drag start to trigger distance crossed
+     */
+    public static final int STAGE_DRAG_TO_TRIGGER = 0;
+    /**
+     * from drag start to release
+     */
+    public static final int STAGE_DRAG_TO_RELEASE = 1;
+    /**
+     * from release or {@link RefreshLayout#setRefreshing(boolean)} to refresh fired
+     */
+    public static final int STAGE_REQUEST_TO_FIRE = 2;
+    /**
+     * from refresh fired to {@link RefreshLayout#setRefreshing(boolean)} with false
+     */
+    public static final int STAGE_REFRESHING = 3;
+    /**
+     * from refresh finish requested to RM reset complete
+     */
+    public static final int STAGE_FINISH_TO_RESET = 4;
+
+    private static final int STAGE_COUNT = 5;
+
+    @IntDef({STAGE_DRAG_TO_TRIGGER, STAGE_DRAG_TO_RELEASE, STAGE_REQUEST_TO_FIRE, STAGE_REFRESHING,
+            STAGE_FINISH_TO_RESET})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Stage {
+    }
+
+    private static final RefreshMetrics GLOBAL = new RefreshMetrics();
+
+    private final LatencyHistogram[] mHistograms = new LatencyHistogram[STAGE_COUNT];
+
+    private long mDragStartNanos;
+    private long mTriggerNanos;
+    private long mRequestNanos;
+    private long mFireNanos;
+    private long mFinishNanos;
+
+    RefreshMetrics() {
+        for (int i = 0; i < STAGE_COUNT; ++i) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @return metrics aggregated from every RefreshLayout with metrics enabled
+     */
+    public static RefreshMetrics global() {
+        return GLOBAL;
+    }
+
+    public LatencyHistogram.Snapshot snapshot(@Stage int stage) {
+        return mHistograms[stage].snapshot();
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : mHistograms) {
+            histogram.reset();
+        }
+    }
+
+    void onDragStart() {
+        mDragStartNanos = System.nanoTime();
+        mTriggerNanos = 0;
+    }
+
+    boolean isTriggerPending() {
+        return mDragStartNanos != 0 && mTriggerNanos == 0;
+    }
+
+    void onTriggerCrossed() {
+        if (isTriggerPending()) {
+            mTriggerNanos = System.nanoTime();
+            record(STAGE_DRAG_TO_TRIGGER, mTriggerNanos - mDragStartNanos);
+        }
+    }
+
+    void onRelease() {
+        if (mDragStartNanos != 0) {
+            final long now = System.nanoTime();
+            record(STAGE_DRAG_TO_RELEASE, now - mDragStartNanos);
+            mRequestNanos = now;
+            mDragStartNanos = 0;
+        }
+    }
+
+    void onRefreshRequested() {
+        mRequestNanos = System.nanoTime();
+    }
+
+    void onRefreshFired() {
+        mFireNanos = System.nanoTime();
+        if (mRequestNanos != 0) {
+            record(STAGE_REQUEST_TO_FIRE, mFireNanos - mRequestNanos);
+            mRequestNanos = 0;
+        }
+    }
+
+    void onFinishRequested() {
+        mFinishNanos = System.nanoTime();
+        if (mFireNanos != 0) {
+            record(STAGE_REFRESHING, mFinishNanos - mFireNanos);
+            mFireNanos = 0;
+        }
+    }
+
+    void onResetComplete() {
+        if (mFinishNanos != 0) {
+            record(STAGE_FINISH_TO_RESET, System.nanoTime() - mFinishNanos);
+            mFinishNanos = 0;
+        }
+        //a release that didn't trigger refresh ends here
+        mRequestNanos = 0;
+    }
+
+    private void record(int stage, long nanos) {
+        final long micros = nanos / 1000;
+        mHistograms[stage].record(micros);
+        GLOBAL.mHistograms[stage].record(micros);
+    }
+}
@@ -0,0 +1,119 @@
+package com.laxus.android.refreshlayout;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * Systrace sections around RefreshLayout hot paths, disabled by default.
+ * when disabled every call costs a single branch.
+ * enable it once before any RefreshLayout is used, toggling it while a section is open leaves it unbalanced.
+ */
+public final class RefreshTrace {
+
+    private static final String LOG_TAG = "RefreshTrace";
+
+    private static boolean sEnabled;
+
+    /**
+     * public async sections of api 29, called through reflection as long as compile sdk is older
+     */
+    private static final int PUBLIC_ASYNC_TRACE_API = 29;
+
+    private static long sTraceTagApp;
+    private static Method sAsyncTraceBeginMethod;
+    private static Method sAsyncTraceEndMethod;
+    /**
+     * whether looking up async trace methods has been tried, a failure is not retried
+     */
+    private static boolean sAsyncTraceResolved;
+
+    private RefreshTrace() {
+    }
+
+    /**
+     * enable trace sections, require api 18, async sections are best effort
+     */
+    public static void setEnabled(boolean enabled) {
+        if (enabled && Build.VERSION.SDK_INT < 18) {
+            return;
+        }
+        if (enabled && !sAsyncTraceResolved) {
+            sAsyncTraceResolved = true;
+            setUpAsyncTrace();
+        }
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    @TargetApi(18)
+    public static void beginSection(String sectionName) {
+        if (sEnabled) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    @TargetApi(18)
+    public static void endSection() {
+        if (sEnabled) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * begin a section that may end on another frame or thread
+     *
+     * @param cookie distinguish sections of the same name
+     */
+    public static void beginAsyncSection(String sectionName, int cookie) {
+        if (sEnabled && sAsyncTraceBeginMethod != null) {
+            invokeAsyncTrace(sAsyncTraceBeginMethod, sectionName, cookie);
+        }
+    }
+
+    public static void endAsyncSection(String sectionName, int cookie) {
+        if (sEnabled && sAsyncTraceEndMethod != null) {
+            invokeAsyncTrace(sAsyncTraceEndMethod, sectionName, cookie);
+        }
+    }
+
+    private static void setUpAsyncTrace() {
+        try {
+            if (Build.VERSION.SDK_INT >= PUBLIC_ASYNC_TRACE_API) {
+                //public api, no hidden api access
+                sAsyncTraceBeginMethod = Trace.class.getMethod("beginAsyncSection", String.class, int.class);
+                sAsyncTraceEndMethod = Trace.class.getMethod("endAsyncSection", String.class, int.class);
+            } else {
+                //async sections are not public before api 29
+                sTraceTagApp = Trace.class.getField("TRACE_TAG_APP").getLong(null);
+                sAsyncTraceBeginMethod = Trace.class.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+                sAsyncTraceEndMethod = Trace.class.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+            }
+        } catch (Exception e) {
+            Log.w(LOG_TAG, "async trace sections are unavailable", e);
+            sAsyncTraceBeginMethod = null;
+            sAsyncTraceEndMethod = null;
+        }
+    }
+
+    private static void invokeAsyncTrace(Method method, String sectionName, int cookie) {
+        try {
+            if (Build.VERSION.SDK_INT >= PUBLIC_ASYNC_TRACE_API) {
+                method.invoke(null, sectionName, cookie);
+            } else {
+                method.invoke(null, sTraceTagApp, sectionName, cookie);
+            }
+        } catch (Exception e) {
+            //log once, a method failing once fails every time
+            Log.w(LOG_TAG, "unable to invoke " + method.getName() + ", async trace sections are disabled", e);
+            sAsyncTraceBeginMethod = null;
+            sAsyncTraceEndMethod = null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.laxus.android.refreshlayout;
+
+import java.util.Arrays;
+
+/**
+ * Latency statistics over the most recent {@link #WINDOW_SIZE} samples, in microseconds.
+ * samples are recorded on the main thread, read it on the main thread as well.
+ */
+public class RollingLatency {
+
+    public static final int WINDOW_SIZE = 128;
+
+    private final long[] mSamples = new long[WINDOW_SIZE];
+    private final long[] mSorted = new long[WINDOW_SIZE];
+    private int mCount;
+    private int mNext;
+    private boolean mSortedDirty;
+
+    void record(long micros) {
+        mSamples[mNext] = micros;
+        mNext = (mNext + 1) % WINDOW_SIZE;
+        mCount = Math.min(mCount + 1, WINDOW_SIZE);
+        mSortedDirty = true;
+    }
+
+    public void reset() {
+        mCount = 0;
+        mNext = 0;
+        mSortedDirty = true;
+    }
+
+    /**
+     * @return number of samples in current window
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    public long getMeanMicros() {
+        if (mCount == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < mCount; ++i) {
+            sum += mSamples[i];
+        }
+        return sum / mCount;
+    }
+
+    public long getMaxMicros() {
+        return getPercentileMicros(100);
+    }
+
+    /**
+     * @param percentile in range [0..100]
+     * @return nearest rank percentile of current window, 0 if there is no sample
+     */
+    public long getPercentileMicros(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        if (mSortedDirty) {
+            System.arraycopy(mSamples, 0, mSorted, 0, mCount);
+            Arrays.sort(mSorted, 0, mCount);
+            mSortedDirty = false;
+        }
+        final int rank = (int) Math.ceil(mCount * Math.min(100, percentile) / 100);
+        return mSorted[Math.max(0, rank - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + mCount + ", mean=" + getMeanMicros() + "us, p50=" + getPercentileMicros(50)
+                + "us, p90=" + getPercentileMicros(90) + "us, max=" + getMaxMicros() + "us";
+    }
+}
@@ -0,0 +1,96 @@
+package com.laxus.android.refreshlayout;
+
+import android.view.MotionEvent;
+
+/**
+ * Extrapolates where the finger will be when a consumed offset reaches the display, from recent samples.
+ * prediction is bounded and dropped as soon as the finger slows down or turns back.
+ */
+class TouchPredictor {
+
+    private static final int MAX_SAMPLES = 8;
+    /**
+     * samples older than this to the newest one are ignored
+     */
+    private static final int SAMPLE_WINDOW = 48;//MS
+    static final int MAX_PREDICTION_TIME = 24;//MS
+    static final int MAX_PREDICTION_DISTANCE = 24;//DP
+
+    private final long[] mTimes = new long[MAX_SAMPLES];
+    private final float[] mYs = new float[MAX_SAMPLES];
+    private int mCount;
+    private int mNext;
+
+    private final float mMaxDistance;
+    private final float mLeadMill;
+
+    /**
+     * @param density           display density, scales {@link #MAX_PREDICTION_DISTANCE}
+     * @param frameIntervalMill interval between display frames in milliseconds
+     */
+    TouchPredictor(float density, float frameIntervalMill) {
+        mMaxDistance = MAX_PREDICTION_DISTANCE * density;
+        //a consumed offset is drawn on next frame and shown the frame after
+        mLeadMill = Math.min(MAX_PREDICTION_TIME, frameIntervalMill);
+    }
+
+    void reset() {
+        mCount = 0;
+        mNext = 0;
+    }
+
+    /**
+     * add batched and current samples of a pointer
+     */
+    void addSamples(MotionEvent ev, int pointerIndex) {
+        final int historySize = ev.getHistorySize();
+        for (int h = 0; h < historySize; ++h) {
+            add(ev.getHistoricalEventTime(h), ev.getHistoricalY(pointerIndex, h));
+        }
+        add(ev.getEventTime(), ev.getY(pointerIndex));
+    }
+
+    void add(long time, float y) {
+        mTimes[mNext] = time;
+        mYs[mNext] = y;
+        mNext = (mNext + 1) % MAX_SAMPLES;
+        mCount = Math.min(mCount + 1, MAX_SAMPLES);
+    }
+
+    /**
+     * @return distance in pixels along y the finger is expected to move further, 0 if unsure
+     */
+    float predict() {
+        if (mCount < 3) {
+            return 0;
+        }
+        final int newest = (mNext - 1 + MAX_SAMPLES) % MAX_SAMPLES;
+        final int previous = (newest - 1 + MAX_SAMPLES) % MAX_SAMPLES;
+        int oldest = newest;
+        for (int i = 1; i < mCount; ++i) {
+            final int index = (newest - i + MAX_SAMPLES) % MAX_SAMPLES;
+            if (mTimes[newest] - mTimes[index] > SAMPLE_WINDOW) {
+                break;
+            }
+            oldest = index;
+        }
+        if (oldest == newest || oldest == previous) {
+            return 0;
+        }
+        final long windowTime = mTimes[newest] - mTimes[oldest];
+        final long lastTime = mTimes[newest] - mTimes[previous];
+        if (windowTime <= 0 || lastTime <= 0) {
+            return 0;
+        }
+        final float windowVelocity = (mYs[newest] - mYs[oldest]) / windowTime;
+        final float lastVelocity = (mYs[newest] - mYs[previous]) / lastTime;
+        if (windowVelocity * lastVelocity <= 0) {
+            //turning back or stopped
+            return 0;
+        }
+        //the slower of both bounds overshoot while decelerating
+        final float velocity = Math.abs(lastVelocity) < Math.abs(windowVelocity) ? lastVelocity : windowVelocity;
+        final float distance = velocity * mLeadMill;
+        return Math.max(-mMaxDistance, Math.min(mMaxDistance, distance));
+    }
+}
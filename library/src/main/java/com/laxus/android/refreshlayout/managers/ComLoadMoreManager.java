@@ -0,0 +1,93 @@
+package com.laxus.android.refreshlayout.managers;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.laxus.android.refreshlayout.FrameRateHint;
+import com.laxus.android.refreshlayout.RefreshLayout;
+import com.laxus.android.refreshlayout.view.LineSpinLoadingDrawable;
+import com.laxus.android.refreshlayout.view.RefreshHintView;
+
+/**
+ * A footer with a spinner and a hint over the bottom of target, only visible while loading more.
+ */
+public class ComLoadMoreManager extends RefreshLayout.LoadMoreManager {
+
+    private static final int BACKGROUND_COLOR = 0xFFFAFAFA;
+
+    private LineSpinLoadingDrawable mSpinDrawable;
+
+    /**
+     * frame rate cap applied to every spinner created, 0 to draw every display frame
+     */
+    private int mFrameRateCap;
+
+    /**
+     * display refresh rate preferred while spinning, applied to every spinner created, 0 for no preference
+     */
+    private float mPreferredFrameRate;
+
+    @Override
+    protected View onCreateView(ViewGroup container) {
+        final RefreshHintView hintView = new RefreshHintView(container.getContext());
+        hintView.setHints("加载中...");
+        hintView.setHint(0);
+        hintView.setBackgroundColor(BACKGROUND_COLOR);
+
+        mSpinDrawable = new LineSpinLoadingDrawable(hintView);
+        mSpinDrawable.setFrameRateCap(mFrameRateCap);
+        mSpinDrawable.setPreferredFrameRate(mPreferredFrameRate);
+        hintView.setIconSize(Math.max(mSpinDrawable.getIntrinsicWidth(), mSpinDrawable.getIntrinsicHeight()));
+        hintView.setIcon(mSpinDrawable);
+        return hintView;
+    }
+
+    @Override
+    protected void onLoadingMoreChanged(View footer, boolean loading) {
+        footer.setVisibility(loading ? View.VISIBLE : View.INVISIBLE);
+        if (loading) {
+            mSpinDrawable.start();
+            if (mRefreshLayout.isSuspended()) {
+                mSpinDrawable.pause();
+            }
+        } else if (mSpinDrawable.isRunning()) {
+            mSpinDrawable.stop();
+        }
+    }
+
+    @Override
+    protected void onSuspendChanged(boolean suspended) {
+        if (suspended) {
+            mSpinDrawable.pause();
+        } else {
+            mSpinDrawable.resume();
+        }
+    }
+
+    /**
+     * set frames per second loading spinner is drawn at, takes effect from next time it starts.
+     *
+     * @param frameRate 0 to draw every display frame
+     */
+    public void setFrameRateCap(int frameRate) {
+        mFrameRateCap = frameRate;
+        if (mSpinDrawable != null) {
+            mSpinDrawable.setFrameRateCap(frameRate);
+        }
+    }
+
+    /**
+     * set a lower display refresh rate window should prefer while loading spinner runs, disabled by default.
+     * the rate applies to the whole window, anything else moving in it is throttled as well, so it's given up
+     * as soon as RefreshLayout is touched or its target scrolls, until spinner starts again.
+     * see {@link FrameRateHint}.
+     *
+     * @param frameRate frames per second, 0 for no preference
+     */
+    public void setPreferredFrameRate(float frameRate) {
+        mPreferredFrameRate = frameRate;
+        if (mSpinDrawable != null) {
+            mSpinDrawable.setPreferredFrameRate(frameRate);
+        }
+    }
+}
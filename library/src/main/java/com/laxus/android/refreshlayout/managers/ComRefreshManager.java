@@ -1,38 +1,96 @@
 package com.laxus.android.refreshlayout.managers;
 
-import android.view.LayoutInflater;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.TextView;
 
-import com.laxus.android.refreshlayout.R;
+import com.laxus.android.refreshlayout.FrameRateHint;
+import com.laxus.android.refreshlayout.RefreshLayout;
 import com.laxus.android.refreshlayout.view.ArrowDrawable;
 import com.laxus.android.refreshlayout.view.LineSpinLoadingDrawable;
+import com.laxus.android.refreshlayout.view.RefreshHintView;
 
 
 public class ComRefreshManager extends ComRefreshManagerBase {
-    private ImageView mHintImageView;
-    private TextView mHintTextView;
+
+    private static final int HINT_PULL = 0;
+    private static final int HINT_RELEASE = 1;
+    private static final int HINT_REFRESHING = 2;
+
+    private RefreshHintView mHintView;
 
     private LineSpinLoadingDrawable mSpinDrawable;
     private ArrowDrawable mArrowDrawable;
 
     private boolean mWaitingRelease;
 
+    /**
+     * arrow decoded in background by {@link #onPreloadView(Context)}, taken by the next refresh view
+     */
+    private Bitmap mPreloadedArrow;
+
     private int mTriggerOffset = -1;
 
+    @RefreshLayout.RenderQuality
+    private int mQuality = RefreshLayout.QUALITY_HIGH;
+
+    /**
+     * frame rate cap applied to every spinner created, 0 to draw every display frame
+     */
+    private int mFrameRateCap;
+
+    /**
+     * display refresh rate preferred while spinning, applied to every spinner created, 0 for no preference
+     */
+    private float mPreferredFrameRate;
+
     @Override
     protected View createRefreshView(ViewGroup container) {
-        View view = LayoutInflater.from(container.getContext())
-                .inflate(R.layout.common_refresh_view, container, false);
-        mHintImageView = (ImageView) view.findViewById(R.id.image_view);
-        mHintTextView = (TextView) view.findViewById(R.id.text_view);
-
-        mHintTextView.setText("下拉刷新");
-        mArrowDrawable = new ArrowDrawable(mHintImageView);
-        mHintImageView.setImageDrawable(mArrowDrawable);
-        return view;
+        mHintView = new RefreshHintView(container.getContext());
+        mHintView.setHints("下拉刷新", "释放刷新", "刷新中...");
+        mHintView.setHint(HINT_PULL);
+
+        if (mPreloadedArrow != null) {
+            mArrowDrawable = new ArrowDrawable(mHintView, mPreloadedArrow);
+            mPreloadedArrow = null;
+        } else {
+            mArrowDrawable = new ArrowDrawable(mHintView);
+        }
+        mSpinDrawable = new LineSpinLoadingDrawable(mHintView);
+        mSpinDrawable.setFrameRateCap(mFrameRateCap);
+        mSpinDrawable.setPreferredFrameRate(mPreferredFrameRate);
+        //reserve room for the bigger icon, so swapping icon never changes header footprint
+        mHintView.setIconSize(Math.max(
+                Math.max(mArrowDrawable.getIntrinsicWidth(), mArrowDrawable.getIntrinsicHeight()),
+                Math.max(mSpinDrawable.getIntrinsicWidth(), mSpinDrawable.getIntrinsicHeight())));
+        mHintView.setIcon(mArrowDrawable);
+        return mHintView;
+    }
+
+    @Override
+    protected boolean canPreloadViewAsync() {
+        return true;
+    }
+
+    @Override
+    protected void onPreloadView(Context context) {
+        mPreloadedArrow = ArrowDrawable.decodeArrow(context.getResources());
+    }
+
+    @Override
+    protected void onPrewarm(View refresh) {
+        final Drawable[] icons = new Drawable[]{mArrowDrawable, mSpinDrawable};
+        for (Drawable icon : icons) {
+            mHintView.setIcon(icon);
+            for (int hint = HINT_PULL; hint <= HINT_REFRESHING; ++hint) {
+                mHintView.setHint(hint);
+                drawPrewarm(refresh);
+            }
+        }
+        mHintView.setIcon(pullIcon());
+        mHintView.setHint(HINT_PULL);
     }
 
     @Override
@@ -42,13 +100,13 @@ public class ComRefreshManager extends ComRefreshManagerBase {
         }
         if (Math.abs(offset) > mTriggerOffset) {
             if (!mWaitingRelease) {
-                mHintTextView.setText("释放刷新");
+                mHintView.setHint(HINT_RELEASE);
                 mArrowDrawable.toggle();
                 mWaitingRelease = true;
             }
         } else {
             if (mWaitingRelease) {
-                mHintTextView.setText("下拉刷新");
+                mHintView.setHint(HINT_PULL);
                 mArrowDrawable.toggle();
                 mWaitingRelease = false;
             }
@@ -57,24 +115,88 @@ public class ComRefreshManager extends ComRefreshManagerBase {
 
     @Override
     protected void onRefreshing() {
-        if (mSpinDrawable == null) {
-            mSpinDrawable = new LineSpinLoadingDrawable(mHintImageView);
-        }
-        mHintImageView.setImageDrawable(mSpinDrawable);
+        mHintView.setIcon(mSpinDrawable);
         mSpinDrawable.start();
-        mHintTextView.setText("刷新中...");
+        if (mRefreshLayout.isSuspended()) {
+            mSpinDrawable.pause();
+        }
+        mHintView.setHint(HINT_REFRESHING);
     }
 
     @Override
     protected void onReset() {
         mWaitingRelease = false;
-        mHintTextView.setText("下拉刷新");
-        if (mSpinDrawable != null && mSpinDrawable.isRunning()) {
+        mHintView.setHint(HINT_PULL);
+        if (mSpinDrawable.isRunning()) {
             mSpinDrawable.stop();
         }
         if (mArrowDrawable.isRunning()) {
             mArrowDrawable.stop();
         }
-        mHintImageView.setImageDrawable(mArrowDrawable);
+        mHintView.setIcon(pullIcon());
+    }
+
+    @Override
+    protected void onRefreshViewReleased() {
+        super.onRefreshViewReleased();
+        mArrowDrawable.release();
+        mHintView = null;
+        mSpinDrawable = null;
+        mArrowDrawable = null;
+        mWaitingRelease = false;
+        mTriggerOffset = -1;
+        mQuality = RefreshLayout.QUALITY_HIGH;
+    }
+
+    @Override
+    protected void onSuspendChanged(boolean suspended) {
+        if (suspended) {
+            mSpinDrawable.pause();
+        } else {
+            mSpinDrawable.resume();
+        }
+    }
+
+    @Override
+    protected void onQualityChanged(@RefreshLayout.RenderQuality int quality) {
+        mQuality = quality;
+        mSpinDrawable.setReducedDetail(quality >= RefreshLayout.QUALITY_MEDIUM);
+        if (mHintView.getIcon() != mSpinDrawable) {
+            mHintView.setIcon(pullIcon());
+        }
+    }
+
+    /**
+     * set frames per second refreshing spinner is drawn at, takes effect from next time it starts.
+     *
+     * @param frameRate 0 to draw every display frame
+     */
+    public void setFrameRateCap(int frameRate) {
+        mFrameRateCap = frameRate;
+        if (mSpinDrawable != null) {
+            mSpinDrawable.setFrameRateCap(frameRate);
+        }
+    }
+
+    /**
+     * set a lower display refresh rate window should prefer while refreshing spinner runs, disabled by default.
+     * the rate applies to the whole window, anything else moving in it is throttled as well, so it's given up
+     * as soon as RefreshLayout is touched or its target scrolls, until spinner starts again.
+     * see {@link FrameRateHint}.
+     *
+     * @param frameRate frames per second, 0 for no preference
+     */
+    public void setPreferredFrameRate(float frameRate) {
+        mPreferredFrameRate = frameRate;
+        if (mSpinDrawable != null) {
+            mSpinDrawable.setPreferredFrameRate(frameRate);
+        }
+    }
+
+    /**
+     * arrow is only decoration of the pull hint, dropped at lowest quality
+     */
+    private Drawable pullIcon() {
+        return mQuality == RefreshLayout.QUALITY_LOW ? null : mArrowDrawable;
     }
 }
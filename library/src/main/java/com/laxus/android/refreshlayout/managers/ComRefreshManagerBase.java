@@ -6,6 +6,8 @@ import android.view.ViewGroup;
 import android.view.animation.Animation;
 import android.view.animation.Transformation;
 
+import com.laxus.android.refreshlayout.FlightRecorder;
+import com.laxus.android.refreshlayout.FrameTrackingAnimation;
 import com.laxus.android.refreshlayout.RefreshLayout;
 
 public abstract class ComRefreshManagerBase extends RefreshLayout.RefreshManager {
@@ -16,10 +18,24 @@ public abstract class ComRefreshManagerBase extends RefreshLayout.RefreshManager
 
     private static final int ANIMATE_TO_START_DURATION = 400;
 
+    private static final int ABSORB_DURATION = 300;
+
+    /**
+     * seconds header keeps absorbed velocity before settling back
+     */
+    private static final float ABSORB_TIME = .05f;
+
     private View mRefreshView;
 
     private int mConsumedDistance;
     private int mCurrentViewOffset;
+    /**
+     * offset header is scrolled to, ahead of {@link #mCurrentViewOffset} while touch is predicted.
+     * animations start from here so header never jumps back on release
+     */
+    private int mRenderedOffset;
+
+    private boolean mAbsorbing;
 
     @Override
     protected View onCreateView(ViewGroup container) {
@@ -49,13 +65,70 @@ public abstract class ComRefreshManagerBase extends RefreshLayout.RefreshManager
         return mRefreshView.getMeasuredHeight();
     }
 
+    @Override
+    protected float getTriggerProgress() {
+        final int triggerDistance = getRefreshTriggerDistance();
+        return triggerDistance > 0 ? Math.abs(mCurrentViewOffset) / (float) triggerDistance : -1f;
+    }
+
+    @Override
+    protected void onAbsorbFling(int velocity) {
+        if (mIsRefreshing || mCurrentViewOffset != 0) {
+            return;
+        }
+        //stay well below trigger distance so absorbing never looks like a pull
+        final int distance = Math.min((int) (velocity * ABSORB_TIME), getRefreshTriggerDistance() / 2);
+        if (distance <= 0) {
+            return;
+        }
+        Animation absorb = new FrameTrackingAnimation("ComRefreshManager.absorb") {
+            @Override
+            protected void applyTransformation(float interpolatedTime, Transformation t) {
+                mCurrentViewOffset = -(int) (distance * Math.sin(Math.PI * interpolatedTime));
+                render(mCurrentViewOffset);
+            }
+        };
+        absorb.setAnimationListener(new Animation.AnimationListener() {
+            @Override
+            public void onAnimationStart(Animation animation) {
+                recordAnimation(FlightRecorder.ANIMATION_ABSORB, true);
+            }
+
+            @Override
+            public void onAnimationEnd(Animation animation) {
+                recordAnimation(FlightRecorder.ANIMATION_ABSORB, false);
+                stopAbsorbing();
+            }
+
+            @Override
+            public void onAnimationRepeat(Animation animation) {
+
+            }
+        });
+        absorb.setDuration(ABSORB_DURATION);
+
+        mAbsorbing = true;
+        mRefreshLayout.clearAnimation();
+        mRefreshLayout.startAnimation(absorb);
+    }
+
+    private void stopAbsorbing() {
+        if (mAbsorbing) {
+            mAbsorbing = false;
+            mCurrentViewOffset = 0;
+            render(0);
+        }
+    }
+
     @Override
     protected void prepare(boolean isScrolling, boolean changed) {
+        //continue from where absorbing is
+        mAbsorbing = false;
         final boolean stateChanged = changed;
         final int triggerDistance = getRefreshTriggerDistance();
         final boolean scrolling = isScrolling;
-        final int totalOffset = mCurrentViewOffset;
-        Animation animateToRefresh = new Animation() {
+        final int totalOffset = mRenderedOffset;
+        Animation animateToRefresh = new FrameTrackingAnimation("ComRefreshManager.prepare") {
             @Override
             protected void applyTransformation(float interpolatedTime, Transformation t) {
                 int offset;
@@ -65,7 +138,7 @@ public abstract class ComRefreshManagerBase extends RefreshLayout.RefreshManager
                     offset = -(int) (triggerDistance * interpolatedTime);
                 }
                 mCurrentViewOffset = offset;
-                mRefreshLayout.scrollTo(0, offset);
+                render(offset);
                 if (stateChanged) {
                     onScroll(offset);
                 }
@@ -74,14 +147,16 @@ public abstract class ComRefreshManagerBase extends RefreshLayout.RefreshManager
         Animation.AnimationListener listener = new Animation.AnimationListener() {
             @Override
             public void onAnimationStart(Animation animation) {
-
+                recordAnimation(FlightRecorder.ANIMATION_PREPARE, true);
             }
 
             @Override
             public void onAnimationEnd(Animation animation) {
+                recordAnimation(FlightRecorder.ANIMATION_PREPARE, false);
                 mCurrentViewOffset = -triggerDistance;
                 mConsumedDistance = (int) (mCurrentViewOffset / SCROLL_RATE);
-                if (stateChanged) {
+                //canceled by finish(), don't fire or show refreshing
+                if (stateChanged && mIsRefreshing) {
                     //notify OnRefreshListener
                     fireRefresh();
 
@@ -101,25 +176,52 @@ public abstract class ComRefreshManagerBase extends RefreshLayout.RefreshManager
         mRefreshLayout.startAnimation(animateToRefresh);
     }
 
+    @Override
+    protected void onRefreshViewReleased() {
+        mRefreshView = null;
+        mConsumedDistance = 0;
+        mCurrentViewOffset = 0;
+        mRenderedOffset = 0;
+    }
+
+    @Override
+    protected int getRefreshOffset() {
+        return mCurrentViewOffset;
+    }
+
+    @Override
+    protected void onRestoreRefreshing(int offset) {
+        mAbsorbing = false;
+        mRefreshLayout.clearAnimation();
+        final int triggerDistance = getRefreshTriggerDistance();
+        //header height may change with configuration, saved offset only if it's not measured
+        mCurrentViewOffset = triggerDistance > 0 ? -triggerDistance : offset;
+        mConsumedDistance = (int) (mCurrentViewOffset / SCROLL_RATE);
+        render(mCurrentViewOffset);
+        onRefreshing();
+    }
+
     @Override
     protected void finish(boolean isScrolling, boolean isRefreshing) {
+        mAbsorbing = false;
         final boolean duringRefreshing = isRefreshing;
-        final int totalOffset = mCurrentViewOffset;
-        Animation animateToStart = new Animation() {
+        final int totalOffset = mRenderedOffset;
+        Animation animateToStart = new FrameTrackingAnimation("ComRefreshManager.finish") {
             @Override
             protected void applyTransformation(float interpolatedTime, Transformation t) {
                 int offset = (int) (totalOffset * (1 - interpolatedTime));
-                mRefreshLayout.scrollTo(0, offset);
+                render(offset);
             }
         };
         Animation.AnimationListener listener = new Animation.AnimationListener() {
             @Override
             public void onAnimationStart(Animation animation) {
-
+                recordAnimation(FlightRecorder.ANIMATION_FINISH, true);
             }
 
             @Override
             public void onAnimationEnd(Animation animation) {
+                recordAnimation(FlightRecorder.ANIMATION_FINISH, false);
                 reset(duringRefreshing);
             }
 
@@ -170,9 +272,18 @@ public abstract class ComRefreshManagerBase extends RefreshLayout.RefreshManager
     @Override
     protected void startConsume() {
         super.startConsume();
+        if (mAbsorbing) {
+            mRefreshLayout.clearAnimation();
+            stopAbsorbing();
+        }
         onScrollStart();
     }
 
+    @Override
+    protected boolean hasConsumed() {
+        return mConsumedDistance < 0;
+    }
+
     @Override
     protected int onConsume(int dy) {
         if (dy < 0 || (dy > 0 && mConsumedDistance < 0)) {
@@ -191,9 +302,25 @@ public abstract class ComRefreshManagerBase extends RefreshLayout.RefreshManager
     }
 
 
+    @Override
+    protected void onPredict(int dy) {
+        //render ahead only, hint state and trigger still follow consumed distance.
+        //bounded like onConsume(): never past the top, and nothing to give back once header is hidden
+        if (dy > 0 && mConsumedDistance >= 0) {
+            return;
+        }
+        final int predicted = Math.min(0, mConsumedDistance + dy);
+        render((int) (predicted * SCROLL_RATE));
+    }
+
+    private void render(int offset) {
+        mRenderedOffset = offset;
+        mRefreshLayout.scrollTo(0, offset);
+    }
+
     private void scroll(int distance, boolean notify) {
         mCurrentViewOffset = (int) (distance * SCROLL_RATE);
-        mRefreshLayout.scrollTo(0, mCurrentViewOffset);
+        render(mCurrentViewOffset);
         if (notify) {
             onScroll(mCurrentViewOffset);
         }
@@ -205,6 +332,7 @@ public abstract class ComRefreshManagerBase extends RefreshLayout.RefreshManager
         if (notify) {
             onReset();
         }
+        notifyReset();
     }
 
     protected void onScrollStart() {
@@ -11,6 +11,8 @@ import android.view.animation.Animation;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Transformation;
 
+import com.laxus.android.refreshlayout.FlightRecorder;
+import com.laxus.android.refreshlayout.FrameTrackingAnimation;
 import com.laxus.android.refreshlayout.RefreshLayout;
 import com.laxus.android.refreshlayout.view.CircleImageView;
 import com.laxus.android.refreshlayout.view.CopiedProgressDrawable;
@@ -75,9 +77,23 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
 
     private int mMediumAnimationDuration;
 
+    @RefreshLayout.RenderQuality
+    private int mQuality = RefreshLayout.QUALITY_HIGH;
+
+    /**
+     * size applied to every spinner created, {@link CopiedProgressDrawable#LARGE} or {@link CopiedProgressDrawable#DEFAULT}
+     */
+    private int mSize = DEFAULT;
+
+    /**
+     * frame rate cap applied to every spinner created, 0 to draw every display frame
+     */
+    private int mFrameRateCap;
+
     private Animation.AnimationListener mRefreshListener = new Animation.AnimationListener() {
         @Override
         public void onAnimationStart(Animation animation) {
+            recordAnimation(FlightRecorder.ANIMATION_PREPARE, true);
         }
 
         @Override
@@ -87,9 +103,13 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         @SuppressLint("NewApi")
         @Override
         public void onAnimationEnd(Animation animation) {
+            recordAnimation(FlightRecorder.ANIMATION_PREPARE, false);
             // Make sure the progress view is fully visible
             mProgress.setAlpha(MAX_ALPHA);
             mProgress.start();
+            if (mRefreshLayout.isSuspended()) {
+                mProgress.pause();
+            }
             mCurrentTargetOffsetTop = mCircleView.getTop();
             mLastTargetY = mCurrentTargetOffsetTop;
             //notify OnRefreshListener
@@ -100,11 +120,12 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
     private Animation.AnimationListener mFinishListener = new Animation.AnimationListener() {
         @Override
         public void onAnimationStart(Animation animation) {
-
+            recordAnimation(FlightRecorder.ANIMATION_FINISH, true);
         }
 
         @Override
         public void onAnimationEnd(Animation animation) {
+            recordAnimation(FlightRecorder.ANIMATION_FINISH, false);
             reset();
         }
 
@@ -132,6 +153,10 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         mCircleView = new CircleImageView(container.getContext(), CIRCLE_BG_LIGHT);
         mProgress = new CopiedProgressDrawable(container.getContext(), mCircleView);
         mProgress.setBackgroundColor(CIRCLE_BG_LIGHT);
+        if (mSize != DEFAULT) {
+            mProgress.updateSizes(mSize);
+        }
+        mProgress.setFrameRateCap(mFrameRateCap);
         mCircleView.setImageDrawable(mProgress);
         mCircleView.setVisibility(View.GONE);
 
@@ -143,6 +168,11 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         return mLastTargetY > mTotalTriggerDistance;
     }
 
+    @Override
+    protected float getTriggerProgress() {
+        return Math.max(0, mLastTargetY) / (float) mTotalTriggerDistance;
+    }
+
     @Override
     protected boolean acceptScroll() {
         return !mIsRefreshing;
@@ -160,6 +190,40 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         }
     }
 
+    @Override
+    protected void onRefreshViewReleased() {
+        mCircleView = null;
+        mProgress = null;
+        mScaleAnimation = null;
+        mScaleDownAnimation = null;
+        mAlphaStartAnimation = null;
+        mAlphaMaxAnimation = null;
+        mTotalConsumedDistance = 0;
+        mCurrentTargetOffsetTop = mOriginalOffsetTop;
+        mLastTargetY = 0;
+        mQuality = RefreshLayout.QUALITY_HIGH;
+    }
+
+    @Override
+    protected int getRefreshOffset() {
+        return mCurrentTargetOffsetTop;
+    }
+
+    @Override
+    protected void onRestoreRefreshing(int offset) {
+        //spinner always rests at its end offset, saved offset is not needed
+        mCircleView.clearAnimation();
+        mCircleView.setVisibility(View.VISIBLE);
+        setAnimationProgress(1f);
+        mProgress.setAlpha(MAX_ALPHA);
+        setTargetOffsetTopAndBottom(mSpinnerOffsetEnd - mCurrentTargetOffsetTop, true /* requires update */);
+        mLastTargetY = mCurrentTargetOffsetTop;
+        mProgress.start();
+        if (mRefreshLayout.isSuspended()) {
+            mProgress.pause();
+        }
+    }
+
     @Override
     protected void finish(boolean isScrolling, boolean isRefreshing) {
         mTotalConsumedDistance = 0;
@@ -172,10 +236,31 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         }
     }
 
+    @Override
+    protected void onPrewarm(View refresh) {
+        final int alpha = mProgress.getAlpha();
+        //translucent ring with arrow while dragging, then the opaque spinner
+        mProgress.showArrow(true);
+        mProgress.setArrowScale(1f);
+        mProgress.setStartEndTrim(0f, MAX_PROGRESS_ANGLE);
+        mProgress.setAlpha(STARTING_PROGRESS_ALPHA);
+        drawPrewarm(refresh);
+        mProgress.showArrow(false);
+        mProgress.setAlpha(MAX_ALPHA);
+        drawPrewarm(refresh);
+
+        mProgress.setStartEndTrim(0f, 0f);
+        mProgress.setArrowScale(0f);
+        mProgress.setAlpha(alpha);
+    }
+
     @Override
     public void measureTargetAndRefresh(View target, View refresh, int widthMeasureSpec, int heightMeasureSpec) {
         super.measureTargetAndRefresh(target, refresh, widthMeasureSpec, heightMeasureSpec);
-        mCircleView.measure(View.MeasureSpec.makeMeasureSpec(mCircleDiameter, View.MeasureSpec.EXACTLY),
+        if (refresh == null) {
+            return;
+        }
+        refresh.measure(View.MeasureSpec.makeMeasureSpec(mCircleDiameter, View.MeasureSpec.EXACTLY),
                 View.MeasureSpec.makeMeasureSpec(mCircleDiameter, View.MeasureSpec.EXACTLY));
     }
 
@@ -192,6 +277,31 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         }
     }
 
+    @Override
+    protected void onSuspendChanged(boolean suspended) {
+        if (suspended) {
+            mProgress.pause();
+        } else {
+            mProgress.resume();
+        }
+    }
+
+    @Override
+    protected void onQualityChanged(@RefreshLayout.RenderQuality int quality) {
+        mQuality = quality;
+        //alpha animations are skipped in moveSpinner below high quality
+        mProgress.setColorInterpolationEnabled(quality == RefreshLayout.QUALITY_HIGH);
+        mCircleView.setShadowEnabled(quality != RefreshLayout.QUALITY_LOW);
+        if (quality == RefreshLayout.QUALITY_LOW) {
+            mProgress.showArrow(false);
+        }
+    }
+
+    @Override
+    protected boolean hasConsumed() {
+        return mTotalConsumedDistance < 0;
+    }
+
     @Override
     protected int onConsume(int dy) {
         if (dy < 0 || (dy > 0 && mTotalConsumedDistance < 0)) {
@@ -219,6 +329,10 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         } else {
             mCircleDiameter = (int) (CIRCLE_DIAMETER * metrics.density);
         }
+        mSize = size;
+        if (mCircleView == null) {
+            return;
+        }
         // force the bounds of the progress circle inside the circle view to
         // update by setting it to null before updating its size and then
         // re-setting it
@@ -227,6 +341,18 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         mCircleView.setImageDrawable(mProgress);
     }
 
+    /**
+     * set frames per second refreshing spinner is drawn at, takes effect from next time it starts.
+     *
+     * @param frameRate 0 to draw every display frame
+     */
+    public void setFrameRateCap(int frameRate) {
+        mFrameRateCap = frameRate;
+        if (mProgress != null) {
+            mProgress.setFrameRateCap(frameRate);
+        }
+    }
+
     void reset() {
         mCircleView.clearAnimation();
         mProgress.stop();
@@ -235,10 +361,11 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         setTargetOffsetTopAndBottom(mOriginalOffsetTop - mCurrentTargetOffsetTop, true /* requires update */);
         mCurrentTargetOffsetTop = mCircleView.getTop();
         mLastTargetY = 0;
+        notifyReset();
     }
 
     private void moveSpinner(float overscrollTop) {
-        mProgress.showArrow(true);
+        mProgress.showArrow(mQuality != RefreshLayout.QUALITY_LOW);
         float originalDragPercent = overscrollTop / mTotalTriggerDistance;
 
         float dragPercent = Math.min(1f, Math.abs(originalDragPercent));
@@ -262,13 +389,17 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
 
 
         if (overscrollTop < mTotalTriggerDistance) {
-            if (mProgress.getAlpha() > STARTING_PROGRESS_ALPHA
+            if (mQuality != RefreshLayout.QUALITY_HIGH) {
+                mProgress.setAlpha(STARTING_PROGRESS_ALPHA);
+            } else if (mProgress.getAlpha() > STARTING_PROGRESS_ALPHA
                     && !isAnimationRunning(mAlphaStartAnimation)) {
                 // Animate the alpha
                 startProgressAlphaStartAnimation();
             }
         } else {
-            if (mProgress.getAlpha() < MAX_ALPHA && !isAnimationRunning(mAlphaMaxAnimation)) {
+            if (mQuality != RefreshLayout.QUALITY_HIGH) {
+                mProgress.setAlpha(MAX_ALPHA);
+            } else if (mProgress.getAlpha() < MAX_ALPHA && !isAnimationRunning(mAlphaMaxAnimation)) {
                 // Animate the alpha
                 startProgressAlphaMaxAnimation();
             }
@@ -307,7 +438,7 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
 
     }
 
-    private final Animation mAnimateToCorrectPosition = new Animation() {
+    private final Animation mAnimateToCorrectPosition = new FrameTrackingAnimation("SwipeRefreshManager.moveToTrigger") {
         @Override
         public void applyTransformation(float interpolatedTime, Transformation t) {
             int targetTop = 0;
@@ -325,7 +456,7 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
         setTargetOffsetTopAndBottom(offset, false /* requires update */);
     }
 
-    private final Animation mAnimateToStartPosition = new Animation() {
+    private final Animation mAnimateToStartPosition = new FrameTrackingAnimation("SwipeRefreshManager.moveToStart") {
         @Override
         public void applyTransformation(float interpolatedTime, Transformation t) {
             moveToStart(interpolatedTime);
@@ -340,7 +471,7 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
             // Don't adjust the alpha during appearance otherwise.
             mProgress.setAlpha(MAX_ALPHA);
         }
-        mScaleAnimation = new Animation() {
+        mScaleAnimation = new FrameTrackingAnimation("SwipeRefreshManager.scaleUp") {
             @Override
             public void applyTransformation(float interpolatedTime, Transformation t) {
                 setAnimationProgress(interpolatedTime);
@@ -366,7 +497,7 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
 
     @SuppressLint("NewApi")
     private Animation startAlphaAnimation(final int startingAlpha, final int endingAlpha) {
-        Animation alpha = new Animation() {
+        Animation alpha = new FrameTrackingAnimation("SwipeRefreshManager.alpha") {
             @Override
             public void applyTransformation(float interpolatedTime, Transformation t) {
                 mProgress.setAlpha(
@@ -382,7 +513,7 @@ public class SwipeRefreshManager extends RefreshLayout.RefreshManager {
     }
 
     void startScaleDownAnimation(Animation.AnimationListener listener) {
-        mScaleDownAnimation = new Animation() {
+        mScaleDownAnimation = new FrameTrackingAnimation("SwipeRefreshManager.scaleDown") {
             @Override
             public void applyTransformation(float interpolatedTime, Transformation t) {
                 setAnimationProgress(1 - interpolatedTime);
@@ -1,5 +1,6 @@
 package com.laxus.android.refreshlayout.view;
 
+import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
@@ -16,7 +17,9 @@ import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.Animation;
 import android.view.animation.Transformation;
 
+import com.laxus.android.refreshlayout.FrameTrackingAnimation;
 import com.laxus.android.refreshlayout.R;
+import com.laxus.android.refreshlayout.RefreshTrace;
 
 
 public class ArrowDrawable extends Drawable implements Animatable {
@@ -37,18 +40,33 @@ public class ArrowDrawable extends Drawable implements Animatable {
     private boolean mDirectionUp = false;
 
     public ArrowDrawable(View parent) {
+        this(parent, decodeArrow(parent.getResources()));
+    }
+
+    /**
+     * @param arrow bitmap decoded by {@link #decodeArrow(Resources)}, recycled by {@link #release()}
+     */
+    public ArrowDrawable(View parent, Bitmap arrow) {
         mParent = parent;
 
         mPaint.setStyle(Paint.Style.STROKE);
         mPaint.setStrokeWidth(parent.getResources().getDisplayMetrics().density * STROKE_WIDTH);
 
-        mArrowBitmap = BitmapFactory.decodeResource(parent.getResources(), R.drawable.arrow);
+        mArrowBitmap = arrow;
         mDrawableSize = Math.max(mArrowBitmap.getWidth(), mArrowBitmap.getHeight());
         setUpAnimation();
     }
 
+    /**
+     * decode arrow bitmap, safe to be called off the main thread
+     */
+    public static Bitmap decodeArrow(Resources resources) {
+        return BitmapFactory.decodeResource(resources, R.drawable.arrow);
+    }
+
     @Override
     public void draw(@NonNull Canvas canvas) {
+        RefreshTrace.beginSection("ArrowDrawable.draw");
         int width = getBounds().width();
         int height = getBounds().height();
         int left = (width - mArrowBitmap.getWidth()) / 2;
@@ -57,7 +75,7 @@ public class ArrowDrawable extends Drawable implements Animatable {
         canvas.rotate(mCurrentDegree, width / 2, height / 2);
         canvas.drawBitmap(mArrowBitmap, left, top, mPaint);
         canvas.restore();
-
+        RefreshTrace.endSection();
     }
 
     @Override
@@ -76,7 +94,7 @@ public class ArrowDrawable extends Drawable implements Animatable {
     }
 
     private void setUpAnimation() {
-        mAnimation = new Animation() {
+        mAnimation = new FrameTrackingAnimation("ArrowDrawable.rotate") {
             @Override
             protected void applyTransformation(float interpolatedTime, Transformation t) {
                 mCurrentDegree = mDirectionUp ?
@@ -127,6 +145,14 @@ public class ArrowDrawable extends Drawable implements Animatable {
         return !mAnimation.hasEnded();
     }
 
+    /**
+     * recycle arrow bitmap, drawable can't be drawn after this
+     */
+    public void release() {
+        stop();
+        mArrowBitmap.recycle();
+    }
+
     /**
      * toggle arrow direction
      */
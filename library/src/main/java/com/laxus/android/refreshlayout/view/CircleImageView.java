@@ -28,12 +28,17 @@ public class CircleImageView extends ImageView {
 
     private Animation.AnimationListener mListener;
     int mShadowRadius;
+    private int mShadowYOffset;
+    private int mShadowXOffset;
+    private boolean mShadowEnabled = true;
 
     public CircleImageView(Context context, int color) {
         super(context);
         final float density = getContext().getResources().getDisplayMetrics().density;
         final int shadowYOffset = (int) (density * Y_OFFSET);
         final int shadowXOffset = (int) (density * X_OFFSET);
+        mShadowYOffset = shadowYOffset;
+        mShadowXOffset = shadowXOffset;
 
         mShadowRadius = (int) (density * SHADOW_RADIUS);
 
@@ -104,6 +109,29 @@ public class CircleImageView extends ImageView {
         }
     }
 
+    /**
+     * shadow is drawn in software before api 21, disable it to save frames.
+     * size and padding are kept so content doesn't move.
+     */
+    public void setShadowEnabled(boolean enabled) {
+        if (mShadowEnabled == enabled) {
+            return;
+        }
+        mShadowEnabled = enabled;
+        final float density = getContext().getResources().getDisplayMetrics().density;
+        if (elevationSupported()) {
+            ViewCompat.setElevation(this, enabled ? SHADOW_ELEVATION * density : 0);
+        } else if (getBackground() instanceof ShapeDrawable) {
+            final Paint paint = ((ShapeDrawable) getBackground()).getPaint();
+            if (enabled) {
+                paint.setShadowLayer(mShadowRadius, mShadowXOffset, mShadowYOffset, KEY_SHADOW_COLOR);
+            } else {
+                paint.clearShadowLayer();
+            }
+            invalidate();
+        }
+    }
+
     private class OvalShadow extends OvalShape {
         private RadialGradient mRadialGradient;
         private Paint mShadowPaint;
@@ -125,7 +153,9 @@ public class CircleImageView extends ImageView {
         public void draw(Canvas canvas, Paint paint) {
             final int viewWidth = CircleImageView.this.getWidth();
             final int viewHeight = CircleImageView.this.getHeight();
-            canvas.drawCircle(viewWidth / 2, viewHeight / 2, viewWidth / 2, mShadowPaint);
+            if (mShadowEnabled) {
+                canvas.drawCircle(viewWidth / 2, viewHeight / 2, viewWidth / 2, mShadowPaint);
+            }
             canvas.drawCircle(viewWidth / 2, viewHeight / 2, viewWidth / 2 - mShadowRadius, paint);
         }
 
@@ -23,9 +23,12 @@ import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 import android.view.animation.Transformation;
 
+import com.laxus.android.refreshlayout.FrameTrackingAnimation;
+import com.laxus.android.refreshlayout.IndicatorAnimator;
+import com.laxus.android.refreshlayout.RefreshTrace;
+
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.ArrayList;
 
 /**
  * Fancy progress indicator for Material theme.
@@ -77,10 +80,6 @@ public class CopiedProgressDrawable extends Drawable implements Animatable {
      * The number of points in the progress "star".
      */
     private static final float NUM_POINTS = 5f;
-    /**
-     * The list of animators operating on this drawable.
-     */
-    private final ArrayList<Animation> mAnimators = new ArrayList<Animation>();
 
     /**
      * The indicator ring, used to manage animation state.
@@ -108,11 +107,16 @@ public class CopiedProgressDrawable extends Drawable implements Animatable {
 
     private Resources mResources;
     private View mParent;
-    private Animation mAnimation;
+    private FrameTrackingAnimation mAnimation;
+    private IndicatorAnimator mAnimator;
     float mRotationCount;
     private double mWidth;
     private double mHeight;
     boolean mFinishing;
+    /**
+     * false to switch ring color at the end of a spin instead of blending it
+     */
+    private boolean mColorInterpolation = true;
 
     public CopiedProgressDrawable(Context context, View parent) {
         mParent = parent;
@@ -123,6 +127,8 @@ public class CopiedProgressDrawable extends Drawable implements Animatable {
 
         updateSizes(DEFAULT);
         setupAnimators();
+        //half of a ring cycle shows the longest arc
+        mAnimator = new IndicatorAnimator(parent, mAnimation, ANIMATION_DURATION / 2);
     }
 
     private void setSizeParameters(double progressCircleWidth, double progressCircleHeight,
@@ -222,11 +228,13 @@ public class CopiedProgressDrawable extends Drawable implements Animatable {
 
     @Override
     public void draw(Canvas c) {
+        RefreshTrace.beginSection("CopiedProgressDrawable.draw");
         final Rect bounds = getBounds();
         final int saveCount = c.save();
         c.rotate(mRotation, bounds.exactCenterX(), bounds.exactCenterY());
         mRing.draw(c, bounds);
         c.restoreToCount(saveCount);
+        RefreshTrace.endSection();
     }
 
     @Override
@@ -261,43 +269,64 @@ public class CopiedProgressDrawable extends Drawable implements Animatable {
 
     @Override
     public boolean isRunning() {
-        final ArrayList<Animation> animators = mAnimators;
-        final int N = animators.size();
-        for (int i = 0; i < N; i++) {
-            final Animation animator = animators.get(i);
-            if (animator.hasStarted() && !animator.hasEnded()) {
-                return true;
-            }
-        }
-        return false;
+        return mAnimator.isRunning();
     }
 
     @Override
     public void start() {
         mAnimation.reset();
+        mRotationCount = 0;
         mRing.storeOriginals();
         // Already showing some part of the ring
         if (mRing.getEndTrim() != mRing.getStartTrim()) {
             mFinishing = true;
             mAnimation.setDuration(ANIMATION_DURATION / 2);
-            mParent.startAnimation(mAnimation);
+            mAnimator.start();
         } else {
             mRing.setColorIndex(0);
             mRing.resetOriginals();
             mAnimation.setDuration(ANIMATION_DURATION);
-            mParent.startAnimation(mAnimation);
+            mAnimator.start();
         }
     }
 
     @Override
     public void stop() {
-        mParent.clearAnimation();
+        mAnimator.stop();
         setRotation(0);
         mRing.setShowArrow(false);
         mRing.setColorIndex(0);
         mRing.resetOriginals();
     }
 
+    /**
+     * stop drawing progress but keep its phase, eg. while it can't be seen
+     */
+    public void pause() {
+        mAnimator.pause();
+    }
+
+    /**
+     * continue progress paused by {@link #pause()}
+     */
+    public void resume() {
+        mAnimator.resume();
+    }
+
+    /**
+     * @param frameRate frames per second progress is drawn at, 0 to draw every display frame
+     */
+    public void setFrameRateCap(int frameRate) {
+        mAnimator.setFrameRateCap(frameRate);
+    }
+
+    /**
+     * @param enabled false to skip blending ring color towards the next one, cheaper under frame pressure
+     */
+    public void setColorInterpolationEnabled(boolean enabled) {
+        mColorInterpolation = enabled;
+    }
+
     float getMinProgressArc(Ring ring) {
         return (float) Math.toRadians(
                 ring.getStrokeWidth() / (2 * Math.PI * ring.getCenterRadius()));
@@ -329,7 +358,7 @@ public class CopiedProgressDrawable extends Drawable implements Animatable {
      * the next color.
      */
     void updateRingColor(float interpolatedTime, Ring ring) {
-        if (interpolatedTime > COLOR_START_DELAY_OFFSET) {
+        if (mColorInterpolation && interpolatedTime > COLOR_START_DELAY_OFFSET) {
             // scale the interpolatedTime so that the full
             // transformation from 0 - 1 takes place in the
             // remaining time
@@ -359,7 +388,7 @@ public class CopiedProgressDrawable extends Drawable implements Animatable {
 
     private void setupAnimators() {
         final Ring ring = mRing;
-        final Animation animation = new Animation() {
+        final FrameTrackingAnimation animation = new FrameTrackingAnimation("CopiedProgressDrawable.spin") {
             @Override
             public void applyTransformation(float interpolatedTime, Transformation t) {
                 if (mFinishing) {
@@ -418,7 +447,7 @@ public class CopiedProgressDrawable extends Drawable implements Animatable {
 
             @Override
             public void onAnimationStart(Animation animation) {
-                mRotationCount = 0;
+                //rotation count is reset in start(), a resumed animation keeps it
             }
 
             @Override
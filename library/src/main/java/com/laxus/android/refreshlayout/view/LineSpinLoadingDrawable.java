@@ -12,10 +12,15 @@ import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.View;
+import android.view.Window;
 import android.view.animation.AccelerateDecelerateInterpolator;
-import android.view.animation.Animation;
 import android.view.animation.Transformation;
 
+import com.laxus.android.refreshlayout.FrameRateHint;
+import com.laxus.android.refreshlayout.FrameTrackingAnimation;
+import com.laxus.android.refreshlayout.IndicatorAnimator;
+import com.laxus.android.refreshlayout.RefreshTrace;
+
 
 public class LineSpinLoadingDrawable extends Drawable implements Animatable {
 
@@ -36,9 +41,24 @@ public class LineSpinLoadingDrawable extends Drawable implements Animatable {
 
     private RectF mDrawRectF = new RectF();
 
-    private Animation mAnimation;
+    private FrameTrackingAnimation mAnimation;
+
+    private IndicatorAnimator mAnimator;
+
+    /**
+     * display refresh rate preferred while spinning, 0 for no preference
+     */
+    private float mPreferredFrameRate;
 
-    private long mStartTimeMill;
+    /**
+     * window a frame rate request is made on while spinning
+     */
+    private Window mFrameRateWindow;
+
+    /**
+     * draw every other line only
+     */
+    private boolean mReducedDetail;
 
 
     public LineSpinLoadingDrawable(View parent) {
@@ -54,16 +74,20 @@ public class LineSpinLoadingDrawable extends Drawable implements Animatable {
         }
 
         setUpAnimation();
+        //lines fade one after another in the still frame
+        mAnimator = new IndicatorAnimator(parent, mAnimation, DELAY[DELAY.length - 1]);
 
     }
 
 
     @Override
     public void draw(@NonNull Canvas canvas) {
+        RefreshTrace.beginSection("LineSpinLoadingDrawable.draw");
         int width = getBounds().width();
         int height = getBounds().height();
         float radius = width / 10;
-        for (int i = 0; i < DELAY.length; i++) {
+        final int step = mReducedDetail ? 2 : 1;
+        for (int i = 0; i < DELAY.length; i += step) {
             canvas.save();
             Point point = circleAt(width, height, width / 2.5f - radius, i * (Math.PI / 4));
             canvas.translate(point.x, point.y);
@@ -74,6 +98,7 @@ public class LineSpinLoadingDrawable extends Drawable implements Animatable {
             canvas.drawRoundRect(mDrawRectF, 5, 5, mPaint);
             canvas.restore();
         }
+        RefreshTrace.endSection();
     }
 
     @Override
@@ -103,36 +128,91 @@ public class LineSpinLoadingDrawable extends Drawable implements Animatable {
 
     @Override
     public void start() {
-        if (!mAnimation.hasEnded()) {
-            mAnimation.cancel();
-        }
         for (int i = 0; i < DELAY.length; ++i) {
             mScale[i] = MAX_SCALE;
             mAlpha[i] = MAX_ALPHA;
         }
-        mAnimation.reset();
-        mParent.clearAnimation();
-        mParent.startAnimation(mAnimation);
+        mAnimator.start();
+        if (mPreferredFrameRate > 0 && mFrameRateWindow == null) {
+            mFrameRateWindow = FrameRateHint.request(mParent, mPreferredFrameRate);
+        }
     }
 
     @Override
     public void stop() {
-        if (!mAnimation.hasEnded()) {
-            mAnimation.cancel();
+        mAnimator.stop();
+        releaseFrameRate();
+    }
+
+    /**
+     * stop spinning but keep the phase, eg. while it can't be seen
+     */
+    public void pause() {
+        mAnimator.pause();
+        releaseFrameRate();
+    }
+
+    /**
+     * continue spinning paused by {@link #pause()}
+     */
+    public void resume() {
+        if (!isRunning()) {
+            return;
+        }
+        mAnimator.resume();
+        if (mPreferredFrameRate > 0 && mFrameRateWindow == null) {
+            mFrameRateWindow = FrameRateHint.request(mParent, mPreferredFrameRate);
+        }
+    }
+
+    /**
+     * @param frameRate frames per second spinner is drawn at, 0 to draw every display frame
+     */
+    public void setFrameRateCap(int frameRate) {
+        mAnimator.setFrameRateCap(frameRate);
+    }
+
+    /**
+     * @param reduced true to draw half of the lines, cheaper under frame pressure
+     */
+    public void setReducedDetail(boolean reduced) {
+        if (mReducedDetail != reduced) {
+            mReducedDetail = reduced;
+            mParent.invalidate();
+        }
+    }
+
+    /**
+     * spinning doesn't need every frame of a high refresh rate display,
+     * set a lower rate window should prefer while spinning, see {@link FrameRateHint}.
+     *
+     * @param frameRate frames per second, 0 for no preference
+     */
+    public void setPreferredFrameRate(float frameRate) {
+        mPreferredFrameRate = frameRate;
+        if (frameRate <= 0) {
+            releaseFrameRate();
+        }
+    }
+
+    private void releaseFrameRate() {
+        if (mFrameRateWindow != null) {
+            FrameRateHint.release(mFrameRateWindow);
+            mFrameRateWindow = null;
         }
     }
 
     @Override
     public boolean isRunning() {
-        return !mAnimation.hasEnded();
+        return mAnimator.isRunning();
     }
 
     private void setUpAnimation() {
-        mAnimation = new Animation() {
+        mAnimation = new FrameTrackingAnimation("LineSpinLoadingDrawable.spin") {
             @Override
             protected void applyTransformation(float interpolatedTime, Transformation t) {
-                //duration too big , interpolatedTime always return 0, cal time self
-                int animateTime = (int) (System.currentTimeMillis() - mStartTimeMill);
+                //duration too big , interpolatedTime always return 0, cal time self from frame time
+                int animateTime = (int) getElapsedTime();
                 for (int i = 0; i < DELAY.length; ++i) {
                     int duration = Math.max(0, animateTime - DELAY[i]) % ANIMATION_DURATION;
                     float percent;
@@ -149,23 +229,6 @@ public class LineSpinLoadingDrawable extends Drawable implements Animatable {
         };
         mAnimation.setDuration(Long.MAX_VALUE);
         mAnimation.setInterpolator(new AccelerateDecelerateInterpolator());
-
-        Animation.AnimationListener listener = new Animation.AnimationListener() {
-            @Override
-            public void onAnimationStart(Animation animation) {
-                mStartTimeMill = System.currentTimeMillis();
-            }
-
-            @Override
-            public void onAnimationEnd(Animation animation) {
-
-            }
-
-            @Override
-            public void onAnimationRepeat(Animation animation) {
-            }
-        };
-        mAnimation.setAnimationListener(listener);
     }
 
     Point circleAt(int width, int height, float radius, double angle) {
@@ -0,0 +1,163 @@
+package com.laxus.android.refreshlayout.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.text.TextPaint;
+import android.view.View;
+
+import com.laxus.android.refreshlayout.RefreshTrace;
+
+/**
+ * A flat header that draws a hint icon and a hint text itself.
+ * all hints are measured up front and the view keeps a fixed footprint,
+ * so switching icon or hint only invalidates this view and never requests a layout.
+ */
+public class RefreshHintView extends View {
+
+    private static final int DEFAULT_HEIGHT = 60;//DP
+    private static final int ICON_TEXT_MARGIN = 8;//DP
+    private static final int TEXT_SIZE = 14;//SP
+    private static final int TEXT_COLOR = 0xFFA1A1A1;
+
+    private final TextPaint mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+    private final int mHeight;
+    private final int mIconTextMargin;
+
+    private String[] mHints = new String[0];
+    private float[] mHintWidths = new float[0];
+    private float mMaxHintWidth;
+    private int mHintIndex = -1;
+
+    private Drawable mIcon;
+    private int mIconSize;
+
+    private float mTextBaseline;
+
+    public RefreshHintView(Context context) {
+        super(context);
+        final float density = getResources().getDisplayMetrics().density;
+        mHeight = (int) (DEFAULT_HEIGHT * density);
+        mIconTextMargin = (int) (ICON_TEXT_MARGIN * density);
+
+        mTextPaint.setColor(TEXT_COLOR);
+        mTextPaint.setTextSize(TEXT_SIZE * getResources().getDisplayMetrics().scaledDensity);
+    }
+
+    /**
+     * set all hints this view could show, each of them is measured once here.
+     *
+     * @param hints hint texts, later referred by index in {@link #setHint(int)}
+     */
+    public void setHints(String... hints) {
+        mHints = hints;
+        mHintWidths = new float[hints.length];
+        mMaxHintWidth = 0;
+        for (int i = 0; i < hints.length; ++i) {
+            mHintWidths[i] = mTextPaint.measureText(hints[i]);
+            mMaxHintWidth = Math.max(mMaxHintWidth, mHintWidths[i]);
+        }
+        mHintIndex = -1;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * show the hint at index, only invalidate when it actually changed
+     */
+    public void setHint(int index) {
+        if (mHintIndex != index) {
+            mHintIndex = index;
+            invalidate();
+        }
+    }
+
+    public int getHint() {
+        return mHintIndex;
+    }
+
+    /**
+     * reserve a square of given size for icons, so swapping icon never changes footprint
+     *
+     * @param size icon size in pixel
+     */
+    public void setIconSize(int size) {
+        if (mIconSize != size) {
+            mIconSize = size;
+            if (mIcon != null) {
+                mIcon.setBounds(0, 0, size, size);
+            }
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * swap the hint icon, icon is drawn inside the reserved icon square
+     */
+    public void setIcon(Drawable icon) {
+        if (mIcon == icon) {
+            return;
+        }
+        if (mIcon != null) {
+            mIcon.setCallback(null);
+        }
+        mIcon = icon;
+        if (icon != null) {
+            icon.setCallback(this);
+            if (mIconSize == 0) {
+                mIconSize = Math.max(icon.getIntrinsicWidth(), icon.getIntrinsicHeight());
+            }
+            icon.setBounds(0, 0, mIconSize, mIconSize);
+        }
+        invalidate();
+    }
+
+    public Drawable getIcon() {
+        return mIcon;
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == mIcon || super.verifyDrawable(who);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int contentWidth = mIconSize + mIconTextMargin + (int) Math.ceil(mMaxHintWidth);
+        setMeasuredDimension(resolveSize(contentWidth, widthMeasureSpec),
+                resolveSize(mHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        final Paint.FontMetrics fm = mTextPaint.getFontMetrics();
+        mTextBaseline = (h - fm.ascent - fm.descent) / 2;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        RefreshTrace.beginSection("RefreshHintView.onDraw");
+        final int contentWidth = mIconSize + mIconTextMargin + (int) Math.ceil(mMaxHintWidth);
+        final float left = (getWidth() - contentWidth) / 2f;
+
+        if (mIcon != null) {
+            final int saveCount = canvas.save();
+            canvas.translate(left, (getHeight() - mIconSize) / 2f);
+            mIcon.draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+
+        if (mHintIndex >= 0 && mHintIndex < mHints.length) {
+            //hint is centered inside the reserved text area, same as a gravity center TextView
+            final float textLeft = left + mIconSize + mIconTextMargin
+                    + (mMaxHintWidth - mHintWidths[mHintIndex]) / 2;
+            canvas.drawText(mHints[mHintIndex], textLeft, mTextBaseline, mTextPaint);
+        }
+        RefreshTrace.endSection();
+    }
+}
@@ -0,0 +1,95 @@
+package com.laxus.android.refreshlayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlightRecorderTest {
+
+    private FlightRecorder mRecorder;
+
+    @Before
+    public void setUp() {
+        mRecorder = new FlightRecorder();
+    }
+
+    /**
+     * record event i with time, arg0 and arg1 all set to i, so a torn event is easy to spot
+     */
+    private void recordEvents(long from, long to) {
+        for (long i = from; i < to; ++i) {
+            mRecorder.record(i, FlightRecorder.EVENT_REFRESH_STATE, (int) i, (int) i);
+        }
+    }
+
+    @Test
+    public void emptyDump() {
+        assertEquals(0, mRecorder.dumpBinary().length);
+        assertEquals("", mRecorder.dumpText());
+    }
+
+    @Test
+    public void dumpsEventsOldestFirst() {
+        recordEvents(0, 3);
+        final ByteBuffer buffer = ByteBuffer.wrap(mRecorder.dumpBinary());
+        assertEquals(3 * FlightRecorder.BINARY_EVENT_SIZE, buffer.remaining());
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(i, buffer.getLong());
+            assertEquals(FlightRecorder.EVENT_REFRESH_STATE, buffer.getInt());
+            assertEquals(i, buffer.getInt());
+            assertEquals(i, buffer.getInt());
+        }
+    }
+
+    @Test
+    public void dumpsEventsAsText() {
+        mRecorder.record(42, FlightRecorder.EVENT_DRAG_END, 1, 0);
+        assertEquals(String.format("42 DRAG_END 1 0%n"), mRecorder.dumpText());
+    }
+
+    @Test
+    public void keepsOnlyLastCapacityEvents() {
+        final int count = FlightRecorder.CAPACITY * 2 + 5;
+        recordEvents(0, count);
+        final ByteBuffer buffer = ByteBuffer.wrap(mRecorder.dumpBinary());
+        assertEquals(FlightRecorder.CAPACITY * FlightRecorder.BINARY_EVENT_SIZE, buffer.remaining());
+        for (int i = count - FlightRecorder.CAPACITY; i < count; ++i) {
+            assertEquals(i, buffer.getLong());
+            buffer.getInt();
+            assertEquals(i, buffer.getInt());
+            assertEquals(i, buffer.getInt());
+        }
+    }
+
+    @Test
+    public void dropsEventsOverwrittenWhileDumping() throws InterruptedException {
+        final long total = FlightRecorder.CAPACITY * 2000L;
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                recordEvents(0, total);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            final ByteBuffer buffer = ByteBuffer.wrap(mRecorder.dumpBinary());
+            assertTrue(buffer.remaining() <= FlightRecorder.CAPACITY * FlightRecorder.BINARY_EVENT_SIZE);
+            long last = -1;
+            while (buffer.hasRemaining()) {
+                final long time = buffer.getLong();
+                assertEquals(FlightRecorder.EVENT_REFRESH_STATE, buffer.getInt());
+                //an event partly overwritten would mix fields of two events
+                assertEquals(time, buffer.getInt());
+                assertEquals(time, buffer.getInt());
+                assertTrue(time > last);
+                last = time;
+            }
+        }
+        writer.join();
+        assertEquals(FlightRecorder.CAPACITY * FlightRecorder.BINARY_EVENT_SIZE, mRecorder.dumpBinary().length);
+    }
+}
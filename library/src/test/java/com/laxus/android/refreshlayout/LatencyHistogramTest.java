@@ -0,0 +1,99 @@
+package com.laxus.android.refreshlayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram mHistogram;
+
+    @Before
+    public void setUp() {
+        mHistogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void smallValuesHaveTheirOwnBucket() {
+        for (int value = 0; value < 8; ++value) {
+            assertEquals(value, LatencyHistogram.bucketIndex(value));
+            assertEquals(value, LatencyHistogram.bucketLowerBound(value));
+            assertEquals(value, LatencyHistogram.bucketUpperBound(value));
+        }
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        final int last = LatencyHistogram.bucketIndex(Long.MAX_VALUE);
+        for (int index = 0; index < last; ++index) {
+            final long lower = LatencyHistogram.bucketLowerBound(index);
+            final long upper = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(lower <= upper);
+            assertEquals(index, LatencyHistogram.bucketIndex(lower));
+            assertEquals(index, LatencyHistogram.bucketIndex(upper));
+            assertEquals(index + 1, LatencyHistogram.bucketIndex(upper + 1));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(last));
+    }
+
+    @Test
+    public void bucketWidthDoublesEveryPowerOfTwo() {
+        assertEquals(LatencyHistogram.bucketIndex(8), LatencyHistogram.bucketIndex(9));
+        assertEquals(LatencyHistogram.bucketIndex(8) + 1, LatencyHistogram.bucketIndex(10));
+        assertEquals(LatencyHistogram.bucketIndex(1024), LatencyHistogram.bucketIndex(1279));
+        assertEquals(LatencyHistogram.bucketIndex(1024) + 1, LatencyHistogram.bucketIndex(1280));
+    }
+
+    @Test
+    public void bucketErrorIsAtMostAQuarter() {
+        final int last = LatencyHistogram.bucketIndex(Long.MAX_VALUE);
+        for (int index = 1; index < last; ++index) {
+            final long lower = LatencyHistogram.bucketLowerBound(index);
+            final long upper = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(upper - lower <= lower / 4);
+        }
+    }
+
+    @Test
+    public void emptySnapshot() {
+        final LatencyHistogram.Snapshot snapshot = mHistogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMeanMicros());
+        assertEquals(0, snapshot.getP99Micros());
+    }
+
+    @Test
+    public void ignoresNegativeValues() {
+        mHistogram.record(-1);
+        assertEquals(0, mHistogram.snapshot().getCount());
+    }
+
+    @Test
+    public void percentilesReportBucketUpperBound() {
+        for (int i = 0; i < 90; ++i) {
+            mHistogram.record(1000);
+        }
+        for (int i = 0; i < 10; ++i) {
+            mHistogram.record(5000);
+        }
+        final LatencyHistogram.Snapshot snapshot = mHistogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1400, snapshot.getMeanMicros());
+        assertEquals(5000, snapshot.getMaxMicros());
+        assertEquals(LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(1000)), snapshot.getP50Micros());
+        assertEquals(LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(1000)), snapshot.getP90Micros());
+        //never above the largest recorded value
+        assertEquals(5000, snapshot.getP99Micros());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        mHistogram.record(100);
+        mHistogram.reset();
+        final LatencyHistogram.Snapshot snapshot = mHistogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMaxMicros());
+    }
+}
@@ -0,0 +1,111 @@
+package com.laxus.android.refreshlayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QualityGovernorTest {
+
+    private static final float FRAME = 16.67f;
+    private static final float SLOW_FRAME = FRAME * 2;
+
+    private QualityGovernor mGovernor;
+
+    @Before
+    public void setUp() {
+        mGovernor = new QualityGovernor(FRAME);
+    }
+
+    /**
+     * feed a full window with the given count of slow frames first
+     *
+     * @return result of the last frame, the one closing the window
+     */
+    private boolean feedWindow(int slowFrames) {
+        boolean changed = false;
+        for (int i = 0; i < QualityGovernor.WINDOW_FRAMES; ++i) {
+            changed = mGovernor.onFrame(i < slowFrames ? SLOW_FRAME : FRAME);
+        }
+        return changed;
+    }
+
+    @Test
+    public void startsAtHighQuality() {
+        assertEquals(RefreshLayout.QUALITY_HIGH, mGovernor.getQuality());
+    }
+
+    @Test
+    public void decidesOnlyAtEndOfWindow() {
+        for (int i = 0; i < QualityGovernor.WINDOW_FRAMES - 1; ++i) {
+            assertFalse(mGovernor.onFrame(SLOW_FRAME));
+        }
+        assertEquals(RefreshLayout.QUALITY_HIGH, mGovernor.getQuality());
+        assertTrue(mGovernor.onFrame(SLOW_FRAME));
+        assertEquals(RefreshLayout.QUALITY_MEDIUM, mGovernor.getQuality());
+    }
+
+    @Test
+    public void downgradesOneLevelPerWindowOverSlowRatio() {
+        assertTrue(feedWindow(7));
+        assertEquals(RefreshLayout.QUALITY_MEDIUM, mGovernor.getQuality());
+        assertTrue(feedWindow(QualityGovernor.WINDOW_FRAMES));
+        assertEquals(RefreshLayout.QUALITY_LOW, mGovernor.getQuality());
+        assertFalse(feedWindow(QualityGovernor.WINDOW_FRAMES));
+        assertEquals(RefreshLayout.QUALITY_LOW, mGovernor.getQuality());
+    }
+
+    @Test
+    public void keepsQualityWithSomeSlowFrames() {
+        feedWindow(QualityGovernor.WINDOW_FRAMES);
+        //6 of 30 is not over 20%, and not clean enough to upgrade either
+        assertFalse(feedWindow(6));
+        assertEquals(RefreshLayout.QUALITY_MEDIUM, mGovernor.getQuality());
+        assertFalse(feedWindow(1));
+        assertEquals(RefreshLayout.QUALITY_MEDIUM, mGovernor.getQuality());
+    }
+
+    @Test
+    public void upgradesOneLevelPerCleanWindow() {
+        feedWindow(QualityGovernor.WINDOW_FRAMES);
+        feedWindow(QualityGovernor.WINDOW_FRAMES);
+        assertEquals(RefreshLayout.QUALITY_LOW, mGovernor.getQuality());
+        assertTrue(feedWindow(0));
+        assertEquals(RefreshLayout.QUALITY_MEDIUM, mGovernor.getQuality());
+        assertTrue(feedWindow(0));
+        assertEquals(RefreshLayout.QUALITY_HIGH, mGovernor.getQuality());
+        assertFalse(feedWindow(0));
+        assertEquals(RefreshLayout.QUALITY_HIGH, mGovernor.getQuality());
+    }
+
+    @Test
+    public void frameAtExactlyOneAndHalfIntervalIsSlow() {
+        for (int i = 0; i < QualityGovernor.WINDOW_FRAMES; ++i) {
+            mGovernor.onFrame(FRAME * 1.5f);
+        }
+        assertEquals(RefreshLayout.QUALITY_MEDIUM, mGovernor.getQuality());
+    }
+
+    @Test
+    public void ignoresNonPositiveIntervals() {
+        for (int i = 0; i < QualityGovernor.WINDOW_FRAMES * 2; ++i) {
+            assertFalse(mGovernor.onFrame(0));
+        }
+        assertEquals(RefreshLayout.QUALITY_HIGH, mGovernor.getQuality());
+    }
+
+    @Test
+    public void resetRestoresHighQualityAndWindow() {
+        feedWindow(QualityGovernor.WINDOW_FRAMES);
+        for (int i = 0; i < QualityGovernor.WINDOW_FRAMES - 1; ++i) {
+            mGovernor.onFrame(SLOW_FRAME);
+        }
+        mGovernor.reset();
+        assertEquals(RefreshLayout.QUALITY_HIGH, mGovernor.getQuality());
+        //a partial window before reset doesn't count
+        assertFalse(mGovernor.onFrame(SLOW_FRAME));
+        assertEquals(RefreshLayout.QUALITY_HIGH, mGovernor.getQuality());
+    }
+}
@@ -0,0 +1,75 @@
+package com.laxus.android.refreshlayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RollingLatencyTest {
+
+    private RollingLatency mLatency;
+
+    @Before
+    public void setUp() {
+        mLatency = new RollingLatency();
+    }
+
+    @Test
+    public void emptyWindow() {
+        assertEquals(0, mLatency.getCount());
+        assertEquals(0, mLatency.getMeanMicros());
+        assertEquals(0, mLatency.getPercentileMicros(50));
+    }
+
+    @Test
+    public void nearestRankPercentiles() {
+        for (int i = 1; i <= 10; ++i) {
+            mLatency.record(i * 100);
+        }
+        assertEquals(10, mLatency.getCount());
+        assertEquals(550, mLatency.getMeanMicros());
+        assertEquals(100, mLatency.getPercentileMicros(0));
+        assertEquals(500, mLatency.getPercentileMicros(50));
+        assertEquals(900, mLatency.getPercentileMicros(90));
+        assertEquals(1000, mLatency.getMaxMicros());
+    }
+
+    @Test
+    public void wrapsAroundKeepingLatestSamples() {
+        for (int i = 1; i <= RollingLatency.WINDOW_SIZE; ++i) {
+            mLatency.record(i);
+        }
+        for (int i = 0; i < 10; ++i) {
+            mLatency.record(1000);
+        }
+        //1..10 have been overwritten by ten 1000s
+        assertEquals(RollingLatency.WINDOW_SIZE, mLatency.getCount());
+        assertEquals(11, mLatency.getPercentileMicros(0));
+        assertEquals(1000, mLatency.getMaxMicros());
+        long sum = 10 * 1000;
+        for (int i = 11; i <= RollingLatency.WINDOW_SIZE; ++i) {
+            sum += i;
+        }
+        assertEquals(sum / RollingLatency.WINDOW_SIZE, mLatency.getMeanMicros());
+        assertEquals(11 + RollingLatency.WINDOW_SIZE / 2 - 1, mLatency.getPercentileMicros(50));
+    }
+
+    @Test
+    public void percentilesFollowNewSamples() {
+        mLatency.record(100);
+        assertEquals(100, mLatency.getMaxMicros());
+        mLatency.record(200);
+        assertEquals(200, mLatency.getMaxMicros());
+    }
+
+    @Test
+    public void resetStartsNewWindow() {
+        mLatency.record(500);
+        mLatency.reset();
+        assertEquals(0, mLatency.getCount());
+        mLatency.record(100);
+        assertEquals(1, mLatency.getCount());
+        assertEquals(100, mLatency.getMeanMicros());
+        assertEquals(100, mLatency.getMaxMicros());
+    }
+}
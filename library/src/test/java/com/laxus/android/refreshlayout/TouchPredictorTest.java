@@ -0,0 +1,118 @@
+package com.laxus.android.refreshlayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TouchPredictorTest {
+
+    private static final float DELTA = .001f;
+
+    /**
+     * density 1 so distances are in dp, 16ms frames
+     */
+    private final TouchPredictor mPredictor = new TouchPredictor(1f, 16f);
+
+    private void addAll(long[] times, float[] ys) {
+        for (int i = 0; i < times.length; ++i) {
+            mPredictor.add(times[i], ys[i]);
+        }
+    }
+
+    @Test
+    public void needsThreeSamples() {
+        addAll(new long[]{0, 8}, new float[]{0, 8});
+        assertEquals(0f, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void extrapolatesConstantVelocityOneFrameAhead() {
+        addAll(new long[]{0, 8, 16, 24}, new float[]{0, 8, 16, 24});
+        assertEquals(16f, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void extrapolatesUpwardMotion() {
+        addAll(new long[]{0, 8, 16, 24}, new float[]{24, 16, 8, 0});
+        assertEquals(-16f, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void dropsPredictionWhenTurningBack() {
+        addAll(new long[]{0, 8, 16, 24}, new float[]{0, 8, 16, 10});
+        assertEquals(0f, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void dropsPredictionWhenStopped() {
+        addAll(new long[]{0, 8, 16, 24}, new float[]{0, 8, 16, 16});
+        assertEquals(0f, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void usesSlowerVelocityWhileDecelerating() {
+        //window velocity 1.5px/ms, last segment .5px/ms
+        addAll(new long[]{0, 8, 16, 24}, new float[]{0, 16, 32, 36});
+        assertEquals(8f, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void clampsToMaxDistance() {
+        addAll(new long[]{0, 8, 16, 24}, new float[]{0, 80, 160, 240});
+        assertEquals(TouchPredictor.MAX_PREDICTION_DISTANCE, mPredictor.predict(), DELTA);
+        mPredictor.reset();
+        addAll(new long[]{0, 8, 16, 24}, new float[]{240, 160, 80, 0});
+        assertEquals(-TouchPredictor.MAX_PREDICTION_DISTANCE, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void maxDistanceScalesWithDensity() {
+        final TouchPredictor predictor = new TouchPredictor(2f, 16f);
+        final long[] times = new long[]{0, 8, 16, 24};
+        for (int i = 0; i < times.length; ++i) {
+            predictor.add(times[i], i * 80);
+        }
+        assertEquals(TouchPredictor.MAX_PREDICTION_DISTANCE * 2, predictor.predict(), DELTA);
+    }
+
+    @Test
+    public void leadIsCappedOnSlowDisplays() {
+        final TouchPredictor predictor = new TouchPredictor(2f, 33f);
+        final long[] times = new long[]{0, 8, 16, 24};
+        for (int i = 0; i < times.length; ++i) {
+            predictor.add(times[i], times[i]);
+        }
+        assertEquals(TouchPredictor.MAX_PREDICTION_TIME, predictor.predict(), DELTA);
+    }
+
+    @Test
+    public void ignoresSamplesOutsideWindow() {
+        //first sample would slow the window velocity down if it was used
+        addAll(new long[]{0, 100, 108, 116}, new float[]{15, 0, 8, 16});
+        assertEquals(16f, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void needsMoreThanLastSegmentInWindow() {
+        addAll(new long[]{0, 100, 108}, new float[]{0, 0, 8});
+        assertEquals(0f, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void keepsOnlyNewestSamples() {
+        //ten samples overflow the ring, the newest ones still make a constant velocity
+        for (int i = 0; i < 10; ++i) {
+            mPredictor.add(i * 4, i * 4);
+        }
+        assertEquals(16f, mPredictor.predict(), DELTA);
+    }
+
+    @Test
+    public void resetDropsSamples() {
+        addAll(new long[]{0, 8, 16, 24}, new float[]{0, 8, 16, 24});
+        mPredictor.reset();
+        mPredictor.add(32, 32);
+        mPredictor.add(40, 40);
+        assertEquals(0f, mPredictor.predict(), DELTA);
+    }
+}